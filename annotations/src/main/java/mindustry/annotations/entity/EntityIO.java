@@ -142,33 +142,98 @@ public class EntityIO{
             for(RevisionField field : rev.fields){
                 Svar var = allFields.find(s -> s.name().equals(field.name));
                 if(var == null || var.has(NoSync.class)) continue;
-                boolean sf = var.has(SyncField.class), sl = var.has(SyncLocal.class);
 
-                if(sl) cont("if(!islocal)");
+                readSyncField(field, var);
+            }
 
-                if(sf){
-                    //TODO adding + targetSuf to the assignment fixes units being interpolated incorrectly during physics, but makes interpolation snap instead.
-                    st(field.name + lastSuf + " = this." + field.name);
-                }
+            st("afterSync()");
+        }
+    }
 
-                io(field.type, "this." + (sf ? field.name + targetSuf : field.name) + " = ", true);
+    /** Generates code that writes a single synced field by index, for field-level snapshot deltas. */
+    void writeSyncField(MethodSpec.Builder method, Seq<Svar> allFields) throws Exception{
+        this.method = method;
+        this.write = true;
 
-                if(sl){
-                    ncont("else" );
+        Seq<RevisionField> fields = syncFields(allFields);
 
-                    io(field.type, "", true);
+        cont("switch(field)");
+        for(int i = 0; i < fields.size; i++){
+            RevisionField field = fields.get(i);
+            method.addCode("case $L: {\n$>", i);
+            io(field.type, "this." + field.name, true);
+            st("return true");
+            method.addCode("$<}\n");
+        }
+        econt();
+    }
 
-                    //just assign the two values so jumping does not occur on de-possession
-                    if(sf){
-                        st(field.name + lastSuf + " = this." + field.name);
-                        st(field.name + targetSuf + " = this." + field.name);
-                    }
+    /** Generates code that reads the synced fields set in a mask, leaving the other fields untouched. */
+    void readSyncDelta(MethodSpec.Builder method, Seq<Svar> allFields) throws Exception{
+        this.method = method;
+        this.write = false;
 
-                    econt();
-                }
+        Seq<RevisionField> fields = syncFields(allFields);
+
+        //base read code
+        st("if(lastUpdated != 0) updateSpacing = $T.timeSinceMillis(lastUpdated)", Time.class);
+        st("lastUpdated = $T.millis()", Time.class);
+        st("boolean islocal = isLocal()");
+
+        for(int i = 0; i < fields.size; i++){
+            RevisionField field = fields.get(i);
+            Svar var = allFields.find(s -> s.name().equals(field.name));
+
+            cont("if((mask & (1L << $L)) != 0)", i);
+            readSyncField(field, var);
+            if(var.has(SyncField.class)){
+                //unchanged interpolated fields continue from their current value towards the old target
+                ncont("else");
+                st(field.name + lastSuf + " = this." + field.name);
+            }
+            econt();
+        }
+
+        st("afterSync()");
+    }
+
+    /** @return synced fields of the latest revision, in the order used by writeSync. */
+    Seq<RevisionField> syncFields(Seq<Svar> allFields){
+        Seq<RevisionField> fields = revisions.peek().fields.select(field -> {
+            Svar var = allFields.find(s -> s.name().equals(field.name));
+            return var != null && !var.has(NoSync.class);
+        });
+
+        if(fields.size > 64){
+            throw new IllegalArgumentException("Entity type '" + name + "' has more than 64 synced fields, which cannot be represented in a delta mask.");
+        }
+        return fields;
+    }
+
+    private void readSyncField(RevisionField field, Svar var) throws Exception{
+        boolean sf = var.has(SyncField.class), sl = var.has(SyncLocal.class);
+
+        if(sl) cont("if(!islocal)");
+
+        if(sf){
+            //TODO adding + targetSuf to the assignment fixes units being interpolated incorrectly during physics, but makes interpolation snap instead.
+            st(field.name + lastSuf + " = this." + field.name);
+        }
+
+        io(field.type, "this." + (sf ? field.name + targetSuf : field.name) + " = ", true);
+
+        if(sl){
+            ncont("else" );
+
+            io(field.type, "", true);
+
+            //just assign the two values so jumping does not occur on de-possession
+            if(sf){
+                st(field.name + lastSuf + " = this." + field.name);
+                st(field.name + targetSuf + " = this." + field.name);
             }
 
-            st("afterSync()");
+            econt();
         }
     }
 
@@ -514,6 +514,15 @@ public class EntityProcess extends BaseProcessor{
                             io.writeSync(mbuilder, first.name().equals("writeSync"), allFields);
                         }
 
+                        //SPECIAL CASE: field-level sync I/O code for snapshot deltas
+                        if(first.name().equals("writeSyncField")){
+                            io.writeSyncField(mbuilder, allFields);
+                        }
+
+                        if(first.name().equals("readSyncDelta")){
+                            io.readSyncDelta(mbuilder, allFields);
+                        }
+
                         //SPECIAL CASE: sync I/O code for writing to/from a manual buffer
                         if((first.name().equals("readSyncManual") || first.name().equals("writeSyncManual"))){
                             io.writeSyncManual(mbuilder, first.name().equals("writeSyncManual"), syncedFields);
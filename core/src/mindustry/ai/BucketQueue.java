@@ -0,0 +1,96 @@
+package mindustry.ai;
+
+import arc.math.*;
+import arc.struct.*;
+
+/**
+ * A monotone bucket priority queue for non-negative integer keys (Dial's algorithm).
+ * All keys in the queue must lie in a window smaller than the bucket count; the bucket array grows when a key falls outside it.
+ * Entries are not updated in place - when a key decreases, the value should be added again and stale entries skipped when polled.
+ */
+public class BucketQueue{
+    private IntSeq[] buckets;
+    private int mask;
+    /** smallest and largest key that may be present in the queue */
+    private int min, max;
+    /** key of the last polled value */
+    private int lastKey;
+
+    /** The number of elements in the queue. */
+    public int size;
+
+    public BucketQueue(){
+        this(64);
+    }
+
+    public BucketQueue(int capacity){
+        buckets = new IntSeq[Mathf.nextPowerOfTwo(Math.max(capacity, 2))];
+        mask = buckets.length - 1;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /** Adds a value with the specified key. */
+    public void add(int value, int key){
+        if(size == 0){
+            min = max = key;
+        }else{
+            int newMin = Math.min(min, key), newMax = Math.max(max, key);
+            if(newMax - newMin >= buckets.length){
+                resize(newMax - newMin + 1);
+            }
+            min = newMin;
+            max = newMax;
+        }
+
+        int index = key & mask;
+        IntSeq bucket = buckets[index];
+        if(bucket == null){
+            buckets[index] = bucket = new IntSeq(false, 16);
+        }
+        bucket.add(value);
+        size++;
+    }
+
+    /** Removes and returns a value with the smallest key. The queue must not be empty. */
+    public int poll(){
+        IntSeq bucket;
+        while((bucket = buckets[min & mask]) == null || bucket.size == 0){
+            min++;
+        }
+        size--;
+        lastKey = min;
+        return bucket.pop();
+    }
+
+    /** @return the key of the last value returned by {@link #poll()}. */
+    public int lastKey(){
+        return lastKey;
+    }
+
+    public void clear(){
+        for(IntSeq bucket : buckets){
+            if(bucket != null) bucket.clear();
+        }
+        size = 0;
+    }
+
+    private void resize(int window){
+        IntSeq[] old = buckets;
+        int oldMask = mask;
+
+        buckets = new IntSeq[Mathf.nextPowerOfTwo(window)];
+        mask = buckets.length - 1;
+
+        for(int i = 0; i < old.length; i++){
+            IntSeq bucket = old[i];
+            if(bucket == null || bucket.size == 0) continue;
+
+            //keys currently lie in [min, min + old.length), so each old bucket holds exactly one key
+            int key = min + ((i - min) & oldMask);
+            buckets[key & mask] = bucket;
+        }
+    }
+}
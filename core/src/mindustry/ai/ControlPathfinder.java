@@ -24,6 +24,7 @@ import static mindustry.ai.Pathfinder.*;
 public class ControlPathfinder implements Runnable{
     private static final int wallImpassableCap = 1_000_000;
     private static final int solidCap = 7000;
+    private static final int latencyWindow = 60;
     private static boolean initialized;
 
     public static boolean showDebug;
@@ -141,6 +142,15 @@ public class ControlPathfinder implements Runnable{
     //PATHFINDING THREAD - requests that should be recomputed
     final ObjectSet<PathRequest> invalidRequests = new ObjectSet<>();
 
+    //PATHFINDING THREAD - paths found by earlier requests, which requests towards the same destination follow instead of running their own cluster A*
+    //cleared whenever any cluster changes, and pruned of destinations that no request moves towards anymore
+    final SharedPaths sharedPaths = new SharedPaths();
+    //PATHFINDING THREAD - destinations of live requests, used for pruning
+    final LongSeq sharedPathKeys = new LongSeq();
+    //MAIN THREAD ONLY - time in milliseconds from a new path request until its unit first moves along it
+    final WindowedMean requestLatency = new WindowedMean(latencyWindow);
+    long latencySamples;
+
     /** Current pathfinding thread */
     @Nullable Thread thread;
 
@@ -154,6 +164,9 @@ public class ControlPathfinder implements Runnable{
         //resulting path of nodes
         final IntSeq resultPath = new IntSeq();
 
+        //key of the shared paths this request follows, see SharedPaths#key
+        long sharedKey = -1;
+
         //node index -> total cost
         @Nullable IntFloatMap costs = new IntFloatMap();
         //node index (NodeIndex struct) -> node it came from TODO merge them, make properties of FieldCache?
@@ -163,6 +176,8 @@ public class ControlPathfinder implements Runnable{
 
         //main thread only!
         long lastUpdateId = state.updateId;
+        final long created = Time.nanos();
+        boolean moved;
 
         //both threads
         volatile boolean notFound = false;
@@ -874,6 +889,14 @@ public class ControlPathfinder implements Runnable{
         return null;
     }
 
+    /** @return the cluster path from the start node to the end node, following a path found by an earlier request towards the same node if possible. */
+    @Nullable IntSeq sharedPath(PathRequest request, int team, int costId, int startNodeIndex, int endNodeIndex){
+        if(startNodeIndex == endNodeIndex) return clusterAstar(request, costId, startNodeIndex, endNodeIndex);
+
+        request.sharedKey = SharedPaths.key(team, costId, endNodeIndex);
+        return sharedPaths.find(request.sharedKey, startNodeIndex, endNodeIndex, request.resultPath, (start, end) -> clusterAstar(request, costId, start, end));
+    }
+
     private void checkEdges(PathRequest request, int team, int pathCost, int current, int goal, int cx, int cy, LongSeq connections){
         for(int i = 0; i < connections.size; i++){
             long con = connections.items[i];
@@ -1026,7 +1049,7 @@ public class ControlPathfinder implements Runnable{
             return;
         }
 
-        var nodePath = clusterAstar(request, costId, node, dest);
+        var nodePath = sharedPath(request, team, costId, node, dest);
 
         //no result found, bail out.
         if(nodePath == null){
@@ -1137,6 +1160,7 @@ public class ControlPathfinder implements Runnable{
 
         //if the destination can be trivially reached in a straight line, do that.
         if(raycastResult){
+            if(request != null) moved(request);
             out.set(destination);
             return true;
         }
@@ -1252,6 +1276,7 @@ public class ControlPathfinder implements Runnable{
                     }
                     out.set(request.lastTargetTile.worldx(), request.lastTargetTile.worldy());
                     request.lastTile = recalc ? -1 : initialTileOn.pos();
+                    moved(request);
                     return true;
                 }
             }
@@ -1281,6 +1306,27 @@ public class ControlPathfinder implements Runnable{
         return false;
     }
 
+    private void moved(PathRequest request){
+        if(!request.moved){
+            request.moved = true;
+            requestLatency.add(Time.timeSinceNanos(request.created) / (float)Time.nanosPerMilli);
+            latencySamples ++;
+        }
+    }
+
+    /** @return the average time in milliseconds from a new path request until its unit started moving, over the last requests. */
+    public float getRequestLatency(){
+        return requestLatency.rawMean();
+    }
+
+    /** @return a short summary of path request statistics. */
+    public String stats(){
+        long hits = sharedPaths.hits, searches = sharedPaths.searches;
+        return Strings.format("Path requests: @ searched, @ shared (@%)\nLatency until first movement: @ms (last @ requests, @ total)",
+            searches, hits, hits + searches == 0 ? 0 : hits * 100 / (hits + searches),
+            Strings.fixed(getRequestLatency(), 1), Math.min(latencySamples, latencyWindow), latencySamples);
+    }
+
     private void recalculatePath(PathRequest request){
         initializePathRequest(request, request.team, request.costId, request.unit.tileX(), request.unit.tileY(), request.destination % wwidth, request.destination / wwidth);
     }
@@ -1454,6 +1500,9 @@ public class ControlPathfinder implements Runnable{
     private void clusterChanged(int team, int pathCost, int cx, int cy){
         int index = cx + cy * cwidth;
 
+        //edges between nodes may have changed, so known paths may not be the shortest anymore
+        sharedPaths.clear();
+
         for(var req : threadPathRequests){
             long mapKey = FieldIndex.get(req.destination, pathCost, team);
             var field = fields.get(mapKey);
@@ -1529,6 +1578,12 @@ public class ControlPathfinder implements Runnable{
                     if(Time.timeSinceMillis(lastInvalidCheck) > invalidateCheckInterval){
                         lastInvalidCheck = Time.millis();
 
+                        sharedPathKeys.clear();
+                        for(var request : threadPathRequests){
+                            if(!request.invalidated && request.sharedKey != -1) sharedPathKeys.add(request.sharedKey);
+                        }
+                        sharedPaths.retain(sharedPathKeys);
+
                         var it = invalidRequests.iterator();
                         while(it.hasNext()){
                             var request = it.next();
@@ -1599,6 +1654,90 @@ public class ControlPathfinder implements Runnable{
         }
     }
 
+    /**
+     * Paths found by earlier requests, stored as a map from each node to the next node of a path, per destination node.
+     * A request whose start node is on a known path towards its destination follows it instead of searching.
+     * The rest of a shortest path is a shortest path as well, so a followed path costs as much as a new search; and since every recorded path
+     * overwrites the next nodes along it, following the map always ends at the destination. In case the map is inconsistent anyway,
+     * following it is limited to the amount of known nodes, after which a new search is made.
+     * Pathfinding thread only, except for the statistics.
+     */
+    static class SharedPaths{
+        /** (destination node | costId | team) -> node -> next node of a found path towards that destination node */
+        final LongMap<IntIntMap> paths = new LongMap<>();
+        /** keys to keep in {@link #retain(LongSeq)} */
+        final LongMap<Boolean> retained = new LongMap<>();
+
+        //both threads, for statistics only
+        volatile long hits, searches;
+
+        static long key(int team, int costId, int endNodeIndex){
+            return ((long)endNodeIndex << 16) | (costId << 8) | team;
+        }
+
+        /**
+         * @param result the list the path is written to, when it follows a known path
+         * @return the path from the start node (exclusive) to the end node, either followed or from the search; null if none was found
+         */
+        @Nullable IntSeq find(long key, int startNodeIndex, int endNodeIndex, IntSeq result, PathSearch search){
+            var next = paths.get(key);
+
+            if(next != null && next.containsKey(startNodeIndex)){
+                result.clear();
+
+                int cur = startNodeIndex;
+                //the steps can never exceed the amount of known nodes; if they do, the paths are inconsistent and a new search is needed
+                while(cur != endNodeIndex && result.size <= next.size){
+                    cur = next.get(cur, endNodeIndex);
+                    result.add(cur);
+                }
+
+                if(cur == endNodeIndex){
+                    hits ++;
+                    return result;
+                }
+            }
+
+            searches ++;
+            var path = search.search(startNodeIndex, endNodeIndex);
+
+            if(path != null){
+                if(next == null) paths.put(key, next = new IntIntMap());
+
+                int cur = startNodeIndex;
+                for(int i = 0; i < path.size; i++){
+                    next.put(cur, path.items[i]);
+                    cur = path.items[i];
+                }
+            }
+
+            return path;
+        }
+
+        /** Drops the paths of all destinations that are not in the keys. */
+        void retain(LongSeq keys){
+            retained.clear();
+            for(int i = 0; i < keys.size; i++){
+                retained.put(keys.items[i], true);
+            }
+
+            var it = paths.entries().iterator();
+            while(it.hasNext()){
+                if(!retained.containsKey(it.next().key)) it.remove();
+            }
+            retained.clear();
+        }
+
+        void clear(){
+            paths.clear();
+        }
+    }
+
+    interface PathSearch{
+        /** @return the path from the start node (exclusive) to the end node, or null if there is none. */
+        @Nullable IntSeq search(int startNodeIndex, int endNodeIndex);
+    }
+
     @Struct
     static class FieldIndexStruct{
         int pos;
@@ -12,12 +12,14 @@ import mindustry.core.*;
 import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.gen.*;
+import mindustry.net.Administration.*;
 import mindustry.world.*;
 import mindustry.world.blocks.environment.*;
 import mindustry.world.blocks.storage.*;
 import mindustry.world.meta.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static mindustry.Vars.*;
 import static mindustry.world.meta.BlockFlag.*;
@@ -27,6 +29,8 @@ public class Pathfinder implements Runnable{
     private static final int neverRefresh = Integer.MAX_VALUE;
     private static final int updateFPS = 60;
     private static final int updateInterval = 1000 / updateFPS;
+    /** if more tiles than this change between refreshes, flow fields are recalculated from scratch instead of being repaired */
+    private static final int maxRepairTiles = 4096;
 
     /** cached world size */
     static int wwidth, wheight;
@@ -103,7 +107,13 @@ public class Pathfinder implements Runnable{
     TaskQueue queue = new TaskQueue();
     /** Current pathfinding thread */
     @Nullable Thread thread;
+    /** Worker pool for updating independent flow fields in parallel. Null when only one thread is used. */
+    volatile @Nullable ExecutorService workers;
     IntSeq tmpArray = new IntSeq();
+    /** positions of tiles changed since the last refresh. Main thread only. */
+    IntSeq changedTiles = new IntSeq();
+    /** time of the first tile change since the last refresh, in nanoseconds */
+    long firstChangeTime;
 
     boolean needsRefresh;
 
@@ -193,16 +203,38 @@ public class Pathfinder implements Runnable{
                     //paths with a refresh rate should not be updated by tiles changing
                     if(path != null && path.needsRefresh()){
                         synchronized(path.targets){
-                            //TODO: this is super slow and forces a refresh for every tile changed!
+                            tmpArray.clear();
+                            tmpArray.addAll(path.targets);
                             path.updateTargetPositions();
+                            //new targets invalidate the entire field
+                            if(!tmpArray.equals(path.targets)){
+                                path.targetsChanged = true;
+                            }
                         }
                     }
                 }
 
-                //mark every flow field as dirty, so it updates when it's done
+                boolean repair = Config.incrementalPathfinding.bool() && changedTiles.size <= maxRepairTiles;
+                int[] changed = changedTiles.toArray();
+                long changeTime = firstChangeTime;
+                changedTiles.clear();
+
                 queue.post(() -> {
                     for(Flowfield data : threadList){
-                        data.dirty = true;
+                        boolean retarget;
+                        synchronized(data.targets){
+                            retarget = data.targetsChanged;
+                            data.targetsChanged = false;
+                        }
+
+                        //a full search is pending or running; it cannot be repaired, so mark the field as dirty to update it when it's done
+                        if(!repair || retarget || data.dirty || !data.hasComplete || (data.frontier.size > 0 && !data.repairing)){
+                            data.dirty = true;
+                            data.repairTiles.clear();
+                        }else{
+                            if(data.repairTiles.isEmpty()) data.repairStartTime = changeTime;
+                            data.repairTiles.addAll(changed);
+                        }
                     }
                 });
             }
@@ -269,6 +301,16 @@ public class Pathfinder implements Runnable{
         stop();
         if(net.client()) return;
 
+        int threads = Math.max(Config.pathfinderThreads.num(), 1);
+        if(threads > 1){
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "Pathfinder-Worker");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
         thread = new Thread(this, "Pathfinder");
         thread.setPriority(Thread.MIN_PRIORITY);
         thread.setDaemon(true);
@@ -281,6 +323,10 @@ public class Pathfinder implements Runnable{
             thread.interrupt();
             thread = null;
         }
+        if(workers != null){
+            workers.shutdownNow();
+            workers = null;
+        }
         queue.clear();
         needsRefresh = false;
     }
@@ -299,6 +345,12 @@ public class Pathfinder implements Runnable{
 
         controlPath.updateTile(tile);
 
+        if(changedTiles.isEmpty()) firstChangeTime = Time.nanos();
+        //record the change for incremental repair; once too many tiles change, the whole field is recalculated anyway
+        if(changedTiles.size <= maxRepairTiles){
+            tile.getLinkedTiles(t -> changedTiles.add(t.array()));
+        }
+
         //queue a refresh sometime in the future
         needsRefresh = true;
     }
@@ -306,6 +358,8 @@ public class Pathfinder implements Runnable{
     /** Thread implementation. */
     @Override
     public void run(){
+        Seq<Future<?>> workerTasks = new Seq<>();
+
         while(true){
             if(net.client()) return;
             try{
@@ -313,16 +367,31 @@ public class Pathfinder implements Runnable{
                 if(state.isPlaying()){
                     queue.run();
 
-                    //each update time (not total!) no longer than maxUpdate
-                    for(Flowfield data : threadList){
+                    var pool = workers;
 
-                        //if it's dirty and there is nothing to update, begin updating once more
-                        if(data.dirty && data.frontier.size == 0){
-                            updateTargets(data);
-                            data.dirty = false;
+                    //each update time (not total!) no longer than maxUpdate
+                    if(pool == null){
+                        for(Flowfield data : threadList){
+                            updateField(data);
+                        }
+                    }else{
+                        //flow fields do not share any mutable state, so each one can be updated by a separate worker
+                        workerTasks.clear();
+                        for(Flowfield data : threadList){
+                            workerTasks.add(pool.submit(() -> updateField(data)));
                         }
 
-                        updateFrontier(data, maxUpdate);
+                        for(var task : workerTasks){
+                            try{
+                                task.get();
+                            }catch(ExecutionException e){
+                                Log.err(e.getCause());
+                            }catch(InterruptedException e){
+                                //stop looping when interrupted externally
+                                return;
+                            }
+                        }
+                        workerTasks.clear();
                     }
                 }
 
@@ -338,6 +407,116 @@ public class Pathfinder implements Runnable{
         }
     }
 
+    /** Runs one time slice of a single flow field. Pathfinding thread or worker only. */
+    private void updateField(Flowfield data){
+        if(data.frontier.size == 0){
+            //if it's dirty and there is nothing to update, begin updating once more
+            if(data.dirty){
+                updateTargets(data);
+                data.dirty = false;
+                data.repairTiles.clear();
+            }else if(data.repairTiles.size > 0){
+                repairField(data);
+            }
+        }
+
+        updateFrontier(data, maxUpdate);
+    }
+
+    /**
+     * Incrementally repairs a completed flow field around the tiles in its repair list, instead of flooding the whole map again.
+     * Every tile whose weight was derived from a changed tile is invalidated, then the valid tiles bordering that region
+     * are added to the frontier, which relaxes the region back to the same weights a full search would produce.
+     * Pathfinding thread or worker only.
+     */
+    private void repairField(Flowfield path){
+        int w = path.width, h = path.height, res = path.resolution;
+        int[] weights = path.weights;
+        short[] searches = path.searches;
+        //invalidated tiles are marked with an older search ID, so the frontier treats them as unvisited
+        short invalid = (short)(path.search - 1);
+        IntQueue open = path.repairQueue;
+        IntSeq region = path.repairRegion;
+
+        open.clear();
+        region.clear();
+
+        //costs of the neighbors of changed tiles may have changed too (nearSolid and similar flags), so invalidate them as well
+        for(int i = 0; i < path.repairTiles.size; i++){
+            int pos = path.repairTiles.get(i);
+            int x = (pos % wwidth) / res, y = (pos / wwidth) / res;
+
+            for(int d = -1; d < 4; d++){
+                int dx = d < 0 ? x : x + Geometry.d4x(d), dy = d < 0 ? y : y + Geometry.d4y(d);
+                if(dx < 0 || dy < 0 || dx >= w || dy >= h) continue;
+
+                int packed = dx + dy * w;
+                if(searches[packed] != path.search) continue;
+
+                if(weights[packed] == 0){
+                    //targets keep their weight, but need to propagate it to their changed surroundings
+                    path.frontier.add(packed, 0);
+                }else{
+                    searches[packed] = invalid;
+                    open.addFirst(packed);
+                    region.add(packed);
+                }
+            }
+        }
+
+        path.repairTiles.clear();
+
+        //invalidate every tile that was reached through an invalidated tile
+        while(open.size > 0){
+            int tile = open.removeLast();
+            int cost = weights[tile];
+            if(cost == impassable) continue;
+
+            for(Point2 point : Geometry.d4){
+                int dx = (tile % w) + point.x, dy = (tile / w) + point.y;
+                if(dx < 0 || dy < 0 || dx >= w || dy >= h) continue;
+
+                int newPos = dx + dy * w;
+                if(searches[newPos] != path.search || weights[newPos] == 0) continue;
+
+                int otherCost = path.getCost(tiles, newPos);
+                if(otherCost != impassable && weights[newPos] == cost + otherCost){
+                    searches[newPos] = invalid;
+                    open.addFirst(newPos);
+                    region.add(newPos);
+                }
+            }
+        }
+
+        for(int i = 0; i < region.size; i++){
+            weights[region.items[i]] = impassable;
+        }
+
+        //seed the frontier with valid tiles bordering the invalidated region
+        for(int i = 0; i < region.size; i++){
+            int tile = region.items[i];
+
+            for(Point2 point : Geometry.d4){
+                int dx = (tile % w) + point.x, dy = (tile / w) + point.y;
+                if(dx < 0 || dy < 0 || dx >= w || dy >= h) continue;
+
+                int newPos = dx + dy * w;
+                if(searches[newPos] == path.search && weights[newPos] != impassable){
+                    path.frontier.add(newPos, weights[newPos]);
+                }
+            }
+        }
+
+        path.searchStartTime = path.repairStartTime;
+
+        if(path.frontier.size > 0){
+            path.repairing = true;
+        }else if(region.size > 0){
+            //nothing can reach the invalidated region; publish the result directly
+            publish(path);
+        }
+    }
+
     public Flowfield getField(Team team, int costType, int fieldType){
         if(cache[team.id][costType][fieldType] == null){
             Flowfield field = fieldTypes.get(fieldType).get();
@@ -418,6 +597,7 @@ public class Pathfinder implements Runnable{
 
         //increment search, but do not clear the frontier
         path.search++;
+        if(path.frontier.size == 0) path.searchStartTime = Time.nanos();
 
         //search overflow; reset everything.
         if(path.search >= Short.MAX_VALUE){
@@ -434,7 +614,7 @@ public class Pathfinder implements Runnable{
 
                 path.weights[pos] = 0;
                 path.searches[pos] = (short)path.search;
-                path.frontier.addFirst(pos);
+                path.frontier.add(pos, 0);
             }
         }
     }
@@ -461,12 +641,14 @@ public class Pathfinder implements Runnable{
 
         //fill with impassables by default
         Arrays.fill(path.weights, impassable);
+        path.searchStartTime = Time.nanos();
 
         //add targets
         for(int i = 0; i < path.targets.size; i++){
             int pos = path.targets.get(i);
             path.weights[pos] = 0;
-            path.frontier.addFirst(pos);
+            path.searches[pos] = (short)path.search;
+            path.frontier.add(pos, 0);
         }
     }
 
@@ -479,10 +661,13 @@ public class Pathfinder implements Runnable{
         int w = path.width, h = path.height;
 
         while(path.frontier.size > 0){
-            int tile = path.frontier.removeLast();
+            int tile = path.frontier.poll();
             if(path.weights == null) return; //something went horribly wrong, bail
             int cost = path.weights[tile];
 
+            //a cheaper cost was found after this entry was added, so the tile has already been settled
+            if(cost != path.frontier.lastKey()) continue;
+
             //pathfinding overflowed for some reason, time to bail. the next block update will handle this, hopefully
             if(path.frontier.size >= w * h){
                 path.frontier.clear();
@@ -500,9 +685,10 @@ public class Pathfinder implements Runnable{
                     int otherCost = path.getCost(tiles, newPos);
 
                     if((path.weights[newPos] > cost + otherCost || path.searches[newPos] < path.search) && otherCost != impassable){
-                        path.frontier.addFirst(newPos);
+                        path.frontier.add(newPos, cost + otherCost);
                         path.weights[newPos] = cost + otherCost;
                         path.searches[newPos] = (short)path.search;
+                        path.relaxations++;
                     }
                 }
             }
@@ -518,11 +704,24 @@ public class Pathfinder implements Runnable{
 
         //there WERE some things in the frontier, but now they are gone, so the path is done; copy over latest data
         if(hadAny && path.frontier.size == 0){
-            System.arraycopy(path.weights, 0, path.completeWeights, 0, path.weights.length);
-            path.hasComplete = true;
+            publish(path);
         }
     }
 
+    /** Publishes the current weights of a path as its complete weights. */
+    private void publish(Flowfield path){
+        //copy into the spare buffer and swap, so readers never observe a half-copied field
+        int[] next = path.spareWeights;
+        System.arraycopy(path.weights, 0, next, 0, path.weights.length);
+        path.spareWeights = path.completeWeights;
+        path.completeWeights = next;
+        path.hasComplete = true;
+        path.repairing = false;
+
+        path.convergeTime.add(Time.timeSinceNanos(path.searchStartTime));
+        path.convergeCount++;
+    }
+
     public static class EnemyCoreField extends Flowfield{
         private final static BlockFlag[] randomTargets = {storage, generator, launchPad, factory, repair, battery, reactor, drill};
         private Rand rand = new Rand();
@@ -594,26 +793,47 @@ public class Pathfinder implements Runnable{
         protected volatile boolean hasComplete;
         /** If true, this flow field needs updating. This flag is only set to false once the flow field finishes and the weights are copied over. */
         protected boolean dirty = false;
+        /** If true, the frontier currently holds an incremental repair instead of a full search. */
+        protected boolean repairing = false;
+        /** If true, the targets changed in the last refresh and the field cannot be repaired. Synchronize on targets. */
+        boolean targetsChanged;
 
         /** costs of getting to a specific tile */
         public int[] weights;
         /** search IDs of each position - the highest, most recent search is prioritized and overwritten */
         public short[] searches;
-        /** the last "complete" weights of this tilemap. */
-        public int[] completeWeights;
+        /** the last "complete" weights of this tilemap. Replaced atomically when a search completes. */
+        public volatile int[] completeWeights;
+        /** buffer that the next complete weights are copied into before being swapped with {@link #completeWeights} */
+        int[] spareWeights;
 
         /** Scaling factor. For example, resolution = 2 means tiles are twice as large. */
         public final int resolution;
         public final int width, height;
 
-        /** search frontier, these are Pos objects */
-        final IntQueue frontier = new IntQueue();
+        /** search frontier of packed positions, ordered by their weight */
+        final BucketQueue frontier = new BucketQueue();
         /** all target positions; these positions have a cost of 0, and must be synchronized on! */
         final IntSeq targets = new IntSeq();
+        /** world tile positions that changed since the last repair */
+        final IntSeq repairTiles = new IntSeq();
+        /** temporary storage for repairs */
+        final IntQueue repairQueue = new IntQueue();
+        final IntSeq repairRegion = new IntSeq();
+        /** time of the first tile change of the pending repair, in nanoseconds */
+        long repairStartTime;
         /** current search ID */
         int search = 1;
         /** last updated time */
         long lastUpdateTime;
+        /** time at which the current search began, in nanoseconds */
+        long searchStartTime;
+        /** time taken by recent searches to converge, in nanoseconds */
+        final WindowedMean convergeTime = new WindowedMean(16);
+        /** total amount of searches that have converged */
+        volatile int convergeCount;
+        /** total amount of weight updates performed by searches of this field */
+        public long relaxations;
         /** whether this flow field is ready to be used */
         boolean initialized;
 
@@ -633,7 +853,7 @@ public class Pathfinder implements Runnable{
             this.weights = new int[length];
             this.searches = new short[length];
             this.completeWeights = new int[length];
-            this.frontier.ensureCapacity((length) / 4);
+            this.spareWeights = new int[length];
             this.initialized = true;
         }
 
@@ -659,6 +879,16 @@ public class Pathfinder implements Runnable{
             return hasComplete && completeWeights != null;
         }
 
+        /** @return mean time taken for a search of this field to converge, in milliseconds. */
+        public float convergeTimeMs(){
+            return convergeTime.rawMean() / Time.nanosPerMilli;
+        }
+
+        /** @return the amount of searches of this field that have converged. */
+        public int convergeCount(){
+            return convergeCount;
+        }
+
         public void updateTargetPositions(){
             targets.clear();
             getPositions(targets);
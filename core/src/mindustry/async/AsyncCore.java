@@ -3,6 +3,7 @@ package mindustry.async;
 import arc.*;
 import arc.struct.*;
 import arc.util.*;
+import mindustry.core.*;
 import mindustry.game.EventType.*;
 
 import java.util.concurrent.*;
@@ -12,13 +13,17 @@ import static mindustry.Vars.*;
 public class AsyncCore{
     //all processes to be executed each frame
     public final Seq<AsyncProcess> processes = Seq.with(
-        new PhysicsProcess()
+        new PhysicsProcess(),
+        new FogProcess()
     );
 
-    //futures to be awaited
-    private final Seq<Future<?>> futures = new Seq<>();
+    //futures to be awaited, in the same order as the submitted processes
+    private final Seq<CompletableFuture<Void>> futures = new Seq<>();
+    //processes that were submitted this frame
+    private final Seq<AsyncProcess> submitted = new Seq<>();
 
     private ExecutorService executor;
+    private int executorThreads;
 
     public AsyncCore(){
         Events.on(WorldLoadEvent.class, e -> {
@@ -43,30 +48,55 @@ public class AsyncCore{
                 p.begin();
             }
 
-            futures.clear();
+            submit();
+        }
+    }
 
-            //init executor with size of potentially-modified process list
-            if(executor == null){
-                executor = Executors.newFixedThreadPool(processes.size, r -> {
-                    Thread thread = new Thread(r, "AsyncLogic-Thread");
-                    thread.setDaemon(true);
-                    thread.setUncaughtExceptionHandler((t, e) -> Threads.throwAppException(e));
-                    return thread;
-                });
-            }
+    /** Submits all processes that should run. A process that conflicts with an earlier one starts after it finishes. */
+    void submit(){
+        futures.clear();
+        submitted.clear();
+
+        //(re-)init executor with size of potentially-modified process list
+        int threads = Math.max(Math.min(processes.size, OS.cores), 1);
+        if(executor == null || executorThreads != threads){
+            if(executor != null) executor.shutdown();
+
+            executorThreads = threads;
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "AsyncLogic-Thread");
+                thread.setDaemon(true);
+                thread.setUncaughtExceptionHandler((t, e) -> Threads.throwAppException(e));
+                return thread;
+            });
+        }
 
-            //submit all tasks
-            for(AsyncProcess p : processes){
-                if(p.shouldProcess()){
-                    futures.add(executor.submit(p::process));
+        //submit all tasks
+        for(AsyncProcess p : processes){
+            if(!p.shouldProcess()) continue;
+
+            Seq<CompletableFuture<Void>> dependencies = null;
+            for(int i = 0; i < submitted.size; i++){
+                if(p.conflicts(submitted.get(i))){
+                    if(dependencies == null) dependencies = new Seq<>();
+                    dependencies.add(futures.get(i));
                 }
             }
+
+            Runnable task = () -> run(p);
+
+            submitted.add(p);
+            futures.add(dependencies == null ?
+                CompletableFuture.runAsync(task, executor) :
+                CompletableFuture.allOf(dependencies.toArray(CompletableFuture.class)).thenRunAsync(task, executor));
         }
     }
 
     public void end(){
         if(state.isPlaying()){
+            PerfCounter.asyncWait.begin();
             complete();
+            PerfCounter.asyncWait.end();
 
             //sync end (flush data)
             for(AsyncProcess p : processes){
@@ -75,17 +105,34 @@ public class AsyncCore{
         }
     }
 
-    private void complete(){
-        //wait for all threads to stop processing
+    private void run(AsyncProcess process){
+        PerfCounter counter = process.counter();
+        if(counter != null) counter.begin();
+        process.process();
+        if(counter != null) counter.end();
+    }
+
+    /** Waits for all submitted processes, then rethrows the first exception that a process threw. */
+    void complete(){
+        Throwable error = null;
+
+        //wait for all threads to stop processing, even if one failed
         for(var future : futures){
             try{
                 future.get();
+            }catch(ExecutionException | CompletionException e){
+                if(error == null) error = e.getCause();
             }catch(Throwable t){
-                throw new RuntimeException(t);
+                if(error == null) error = t;
             }
         }
 
         //clear processed futures
         futures.clear();
+        submitted.clear();
+
+        if(error instanceof RuntimeException r) throw r;
+        if(error instanceof Error e) throw e;
+        if(error != null) throw new RuntimeException(error);
     }
 }
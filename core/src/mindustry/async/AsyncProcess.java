@@ -1,5 +1,8 @@
 package mindustry.async;
 
+import arc.util.*;
+import mindustry.core.*;
+
 public interface AsyncProcess{
 
     /** Sync. Called when the world loads. */
@@ -20,4 +23,24 @@ public interface AsyncProcess{
     default boolean shouldProcess(){
         return true;
     }
+
+    /** @return mask of the {@link AsyncResource}s read in {@link #process()}. Processes that conflict with an earlier process wait for it to finish. */
+    default int reads(){
+        return 0;
+    }
+
+    /** @return mask of the {@link AsyncResource}s written in {@link #process()}. */
+    default int writes(){
+        return 0;
+    }
+
+    /** @return the counter that {@link #process()} is timed with, or null to skip timing. */
+    default @Nullable PerfCounter counter(){
+        return null;
+    }
+
+    /** @return whether this process may not run at the same time as another process. */
+    default boolean conflicts(AsyncProcess other){
+        return (writes() & (other.reads() | other.writes())) != 0 || (other.writes() & reads()) != 0;
+    }
 }
@@ -0,0 +1,26 @@
+package mindustry.async;
+
+/** Shared game state that an {@link AsyncProcess} may read or write while processing. */
+public enum AsyncResource{
+    units,
+    buildings,
+    bullets,
+    tiles,
+    fog,
+    /** bodies of the physics world in {@link PhysicsProcess} */
+    physics;
+
+    public static final AsyncResource[] all = values();
+
+    /** Bit of this resource in a read/write mask. */
+    public final int bit = 1 << ordinal();
+
+    /** @return a mask containing all of the specified resources. */
+    public static int mask(AsyncResource... resources){
+        int mask = 0;
+        for(AsyncResource resource : resources){
+            mask |= resource.bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,29 @@
+package mindustry.async;
+
+import mindustry.core.*;
+
+import static mindustry.Vars.*;
+
+/** Redraws dynamic fog coverage from the events queued by {@link mindustry.game.FogControl} in the previous frame. */
+public class FogProcess implements AsyncProcess{
+
+    @Override
+    public void process(){
+        fogControl.updateDynamic();
+    }
+
+    @Override
+    public boolean shouldProcess(){
+        return state.rules.fog && fogControl.hasDynamicUpdate();
+    }
+
+    @Override
+    public int writes(){
+        return AsyncResource.fog.bit;
+    }
+
+    @Override
+    public PerfCounter counter(){
+        return PerfCounter.fog;
+    }
+}
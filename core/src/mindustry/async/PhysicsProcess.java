@@ -5,10 +5,12 @@ import arc.math.geom.*;
 import arc.math.geom.QuadTree.*;
 import arc.struct.*;
 import mindustry.*;
-import mindustry.async.PhysicsProcess.PhysicsWorld.*;
+import mindustry.core.*;
 import mindustry.entities.*;
 import mindustry.gen.*;
 
+import java.util.*;
+
 public class PhysicsProcess implements AsyncProcess{
     public static final int
     layers = 4,
@@ -17,6 +19,9 @@ public class PhysicsProcess implements AsyncProcess{
     layerFlying = 2,
     layerUnderwater = 3;
 
+    /** If true, a uniform grid is used as the broadphase instead of a quadtree. Applied on world load. */
+    public static boolean useGrid = true;
+
     private PhysicsWorld physics;
     private Seq<PhysicRef> refs = new Seq<>(false);
     //currently only enabled for units
@@ -42,27 +47,21 @@ public class PhysicsProcess implements AsyncProcess{
             if(entity == null || entity.type == null || !entity.type.physics) continue;
 
             if(entity.physref == null){
-                PhysicsBody body = new PhysicsBody();
-                body.x = entity.x;
-                body.y = entity.y;
-                body.mass = entity.mass();
-                body.radius = entity.hitSize * Vars.unitCollisionRadiusScale;
+                int body = physics.add(entity.x, entity.y, entity.hitSize * Vars.unitCollisionRadiusScale, entity.mass());
 
                 PhysicRef ref = new PhysicRef(entity, body);
                 refs.add(ref);
 
                 entity.physref = ref;
-
-                physics.add(body);
             }
 
             //save last position
             PhysicRef ref = entity.physref;
 
-            ref.body.layer = entity.collisionLayer();
+            physics.layer[ref.body] = entity.collisionLayer();
+            physics.local[ref.body] = local || entity.isLocal();
             ref.x = entity.x;
             ref.y = entity.y;
-            ref.body.local = local || entity.isLocal();
         }
     }
 
@@ -73,8 +72,8 @@ public class PhysicsProcess implements AsyncProcess{
         //get last position vectors before step
         for(PhysicRef ref : refs){
             //force set target position
-            ref.body.x = ref.x;
-            ref.body.y = ref.y;
+            physics.x[ref.body] = ref.x;
+            physics.y[ref.body] = ref.y;
         }
 
         physics.update();
@@ -89,10 +88,26 @@ public class PhysicsProcess implements AsyncProcess{
             Physicsc entity = ref.entity;
 
             //move by delta
-            entity.move(ref.body.x - ref.x, ref.body.y - ref.y);
+            entity.move(physics.x[ref.body] - ref.x, physics.y[ref.body] - ref.y);
         }
     }
 
+    @Override
+    public int reads(){
+        //unit positions are copied in begin(), but the unit list must not change while stepping
+        return AsyncResource.units.bit;
+    }
+
+    @Override
+    public int writes(){
+        return AsyncResource.physics.bit;
+    }
+
+    @Override
+    public PerfCounter counter(){
+        return PerfCounter.physics;
+    }
+
     @Override
     public void reset(){
         if(physics != null){
@@ -105,107 +120,257 @@ public class PhysicsProcess implements AsyncProcess{
     public void init(){
         reset();
 
-        physics = new PhysicsWorld(Vars.world.getQuadBounds(new Rect()));
+        physics = new PhysicsWorld(Vars.world.getQuadBounds(new Rect()), useGrid);
     }
 
     public static class PhysicRef{
         public Physicsc entity;
-        public PhysicsBody body;
+        /** index of this entity's body in the physics world */
+        public int body;
         public float x, y;
 
-        public PhysicRef(Physicsc entity, PhysicsBody body){
+        public PhysicRef(Physicsc entity, int body){
             this.entity = entity;
             this.body = body;
         }
     }
 
-    //world for simulating physics in a different thread
+    /**
+     * World for simulating physics in a different thread.
+     * Bodies are stored as parallel primitive arrays and referenced by index.
+     */
     public static class PhysicsWorld{
         //how much to soften movement by
         private static final float scl = 1.25f;
-
-        private final QuadTree<PhysicsBody>[] trees = new QuadTree[layers];
-        private final Seq<PhysicsBody> bodies = new Seq<>(false, 16, PhysicsBody.class);
-        private final Seq<PhysicsBody> seq = new Seq<>(PhysicsBody.class);
+        //smallest grid cell size, in world units
+        private static final float minCellSize = 16f;
+        //maximum amount of cells in one layer of the grid
+        private static final int maxCells = 1 << 18;
+
+        /** body data, indexed by body ID. Layer is -1 for bodies that do not collide. */
+        public float[] x = {}, y = {}, radius = {}, mass = {};
+        public int[] layer = {};
+        public boolean[] local = {};
+
+        private boolean[] collided = {}, alive = {};
+        /** amount of body slots in use, including removed ones */
+        private int size;
+        private final IntSeq freeSlots = new IntSeq();
+
+        private final Rect bounds;
+        private final boolean grid;
+
+        //quadtree broadphase
+        private QuadTree<BodyHandle>[] trees;
+        private BodyHandle[] handles = {};
+        private final Seq<BodyHandle> seq = new Seq<>(BodyHandle.class);
         private final Rect rect = new Rect();
-        private final Vec2 vec = new Vec2();
+
+        //grid broadphase; bodies sorted by layer and cell
+        private int[] cellStart = {}, sorted = {}, keys = {};
 
         public PhysicsWorld(Rect bounds){
-            for(int i = 0; i < layers; i++){
-                trees[i] = new QuadTree<>(new Rect(bounds));
+            this(bounds, false);
+        }
+
+        @SuppressWarnings("unchecked")
+        public PhysicsWorld(Rect bounds, boolean grid){
+            this.bounds = new Rect(bounds);
+            this.grid = grid;
+
+            if(!grid){
+                trees = new QuadTree[layers];
+                for(int i = 0; i < layers; i++){
+                    trees[i] = new QuadTree<>(new Rect(bounds));
+                }
+            }
+        }
+
+        /** @return the ID of the new body. */
+        public int add(float x, float y, float radius, float mass){
+            int id;
+            if(freeSlots.size > 0){
+                id = freeSlots.pop();
+            }else{
+                id = size++;
+                if(id >= this.x.length) resize(Math.max(id * 2, 16));
             }
+
+            this.x[id] = x;
+            this.y[id] = y;
+            this.radius[id] = radius;
+            this.mass[id] = mass;
+            this.layer[id] = 0;
+            this.local[id] = true;
+            alive[id] = true;
+            return id;
         }
 
-        public void add(PhysicsBody body){
-            bodies.add(body);
+        public void remove(int id){
+            alive[id] = false;
+            freeSlots.add(id);
         }
 
-        public void remove(PhysicsBody body){
-            bodies.remove(body);
+        /** @return the amount of bodies in this world. */
+        public int bodies(){
+            return size - freeSlots.size;
         }
 
         public void update(){
+            if(grid){
+                updateGrid();
+            }else{
+                updateTree();
+            }
+        }
+
+        private void updateTree(){
             for(int i = 0; i < layers; i++){
                 trees[i].clear();
             }
 
-            var bodyItems = bodies.items;
-            int bodySize = bodies.size;
-
-            for(int i = 0; i < bodySize; i++){
-                PhysicsBody body = bodyItems[i];
-                if(body.layer < 0) continue;
-                body.collided = false;
-                trees[body.layer].insert(body);
+            for(int i = 0; i < size; i++){
+                if(!alive[i] || layer[i] < 0) continue;
+                collided[i] = false;
+                if(handles[i] == null) handles[i] = new BodyHandle(this, i);
+                trees[layer[i]].insert(handles[i]);
             }
 
-            for(int i = 0; i < bodySize; i++){
-                PhysicsBody body = bodyItems[i];
+            for(int i = 0; i < size; i++){
                 //for clients, the only body that collides is the local one; all other physics simulations are handled by the server.
-                if(!body.local || body.layer < 0) continue;
+                if(!alive[i] || !local[i] || layer[i] < 0) continue;
 
-                body.hitbox(rect);
+                rect.setCentered(x[i], y[i], radius[i] * 2, radius[i] * 2);
 
                 seq.size = 0;
-                trees[body.layer].intersect(rect, seq);
+                trees[layer[i]].intersect(rect, seq);
                 int size = seq.size;
                 var items = seq.items;
 
                 for(int j = 0; j < size; j++){
-                    PhysicsBody other = items[j];
+                    collide(i, items[j].id);
+                }
+                collided[i] = true;
+            }
+        }
+
+        private void updateGrid(){
+            //cells must be at least as large as the largest collision distance, so only neighboring cells need to be checked
+            float maxRadius = 0f;
+            for(int i = 0; i < size; i++){
+                if(alive[i] && layer[i] >= 0) maxRadius = Math.max(maxRadius, radius[i]);
+            }
+
+            float cell = Math.max(Math.max(maxRadius * 2f, minCellSize), (float)Math.sqrt(bounds.width * bounds.height / maxCells));
+            int cw = Math.max((int)(bounds.width / cell) + 1, 1), ch = Math.max((int)(bounds.height / cell) + 1, 1), cells = cw * ch;
+
+            if(cellStart.length < cells * layers + 1) cellStart = new int[cells * layers + 1];
+            if(sorted.length < size) sorted = new int[x.length];
+            if(keys.length < size) keys = new int[x.length];
+
+            Arrays.fill(cellStart, 0, cells * layers + 1, 0);
 
-                    if(other == body || other.collided) continue;
+            //counting sort by layer and cell
+            for(int i = 0; i < size; i++){
+                if(!alive[i] || layer[i] < 0){
+                    keys[i] = -1;
+                    continue;
+                }
+                collided[i] = false;
+                int cx = Mathf.clamp((int)((x[i] - bounds.x) / cell), 0, cw - 1), cy = Mathf.clamp((int)((y[i] - bounds.y) / cell), 0, ch - 1);
+                int key = layer[i] * cells + cx + cy * cw;
+                keys[i] = key;
+                cellStart[key + 1]++;
+            }
 
-                    float rs = body.radius + other.radius;
-                    float dst = Mathf.dst(body.x, body.y, other.x, other.y);
+            for(int i = 1; i <= cells * layers; i++){
+                cellStart[i] += cellStart[i - 1];
+            }
 
-                    if(dst < rs){
-                        vec.set(body.x - other.x, body.y - other.y).setLength(rs - dst);
-                        float ms = body.mass + other.mass;
-                        float m1 = other.mass / ms, m2 = body.mass / ms;
+            //cellStart[key] is used as an insertion cursor, then shifted back
+            for(int i = 0; i < size; i++){
+                if(keys[i] >= 0) sorted[cellStart[keys[i]]++] = i;
+            }
+            for(int i = cells * layers; i > 0; i--){
+                cellStart[i] = cellStart[i - 1];
+            }
+            cellStart[0] = 0;
+
+            for(int i = 0; i < size; i++){
+                //for clients, the only body that collides is the local one; all other physics simulations are handled by the server.
+                if(keys[i] < 0 || !local[i]) continue;
 
-                        //first body is always local due to guard check above
-                        body.x += vec.x * m1 / scl;
-                        body.y += vec.y * m1 / scl;
+                int base = layer[i] * cells;
+                int cx = Mathf.clamp((int)((x[i] - bounds.x) / cell), 0, cw - 1), cy = Mathf.clamp((int)((y[i] - bounds.y) / cell), 0, ch - 1);
 
-                        if(other.local){
-                            other.x -= vec.x * m2 / scl;
-                            other.y -= vec.y * m2 / scl;
+                for(int gy = Math.max(cy - 1, 0); gy <= Math.min(cy + 1, ch - 1); gy++){
+                    for(int gx = Math.max(cx - 1, 0); gx <= Math.min(cx + 1, cw - 1); gx++){
+                        int key = base + gx + gy * cw;
+                        for(int k = cellStart[key], end = cellStart[key + 1]; k < end; k++){
+                            collide(i, sorted[k]);
                         }
                     }
                 }
-                body.collided = true;
+                collided[i] = true;
             }
         }
 
-        public static class PhysicsBody implements QuadTreeObject{
-            public float x, y, radius, mass;
-            public int layer = 0;
-            public boolean collided = false, local = true;
+        private void collide(int body, int other){
+            if(other == body || collided[other]) return;
+
+            float rs = radius[body] + radius[other];
+            float dx = x[body] - x[other], dy = y[body] - y[other];
+            float dst = Mathf.sqrt(dx * dx + dy * dy);
+
+            if(dst < rs){
+                float len = rs - dst, vx, vy;
+                if(dst > 0f){
+                    vx = dx / dst * len;
+                    vy = dy / dst * len;
+                }else{
+                    vx = vy = 0f;
+                }
+
+                float ms = mass[body] + mass[other];
+                float m1 = mass[other] / ms, m2 = mass[body] / ms;
+
+                //first body is always local due to guard check above
+                x[body] += vx * m1 / scl;
+                y[body] += vy * m1 / scl;
+
+                if(local[other]){
+                    x[other] -= vx * m2 / scl;
+                    y[other] -= vy * m2 / scl;
+                }
+            }
+        }
+
+        private void resize(int capacity){
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            layer = Arrays.copyOf(layer, capacity);
+            local = Arrays.copyOf(local, capacity);
+            collided = Arrays.copyOf(collided, capacity);
+            alive = Arrays.copyOf(alive, capacity);
+            if(!grid) handles = Arrays.copyOf(handles, capacity);
+        }
+
+        /** Quadtree entry of a body; only allocated when the quadtree broadphase is used. */
+        static class BodyHandle implements QuadTreeObject{
+            final PhysicsWorld world;
+            final int id;
+
+            BodyHandle(PhysicsWorld world, int id){
+                this.world = world;
+                this.id = id;
+            }
 
             @Override
             public void hitbox(Rect out){
-                out.setCentered(x, y, radius * 2, radius * 2);
+                float r = world.radius[id];
+                out.setCentered(world.x[id], world.y[id], r * 2, r * 2);
             }
         }
     }
@@ -14,10 +14,15 @@ import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.game.Teams.*;
 import mindustry.gen.*;
+import mindustry.io.*;
+import mindustry.logic.*;
 import mindustry.maps.*;
+import mindustry.net.Administration.*;
 import mindustry.type.*;
 import mindustry.type.Weather.*;
 import mindustry.world.*;
+import mindustry.world.blocks.defense.turrets.*;
+import mindustry.world.blocks.power.*;
 import mindustry.world.blocks.storage.*;
 import mindustry.world.blocks.storage.CoreBlock.*;
 
@@ -412,6 +417,9 @@ public class Logic implements ApplicationListener{
 
     @Override
     public void dispose(){
+        //wait for autosaves that are still being written
+        SaveIO.finishSaves();
+
         //save the settings before quitting
         if(netServer != null){
             netServer.admins.forceSave();
@@ -427,6 +435,13 @@ public class Logic implements ApplicationListener{
         Events.fire(Trigger.update);
         universe.updateGlobal();
 
+        //options that are checked for every building or entity are read from the config once per frame
+        ParallelLogic.active = Config.parallelLogic.bool();
+        LogicBudget.budget = Config.logicBudget.num() * 1000L;
+        ParallelPower.active = Config.parallelPower.bool();
+        BulletCollisions.active = Config.batchCollisions.bool();
+        TurretTargeting.active = Config.sharedTargeting.bool();
+
         if(Core.settings.modified() && !state.isPlaying()){
             netServer.admins.forceSave();
             Core.settings.forceSave();
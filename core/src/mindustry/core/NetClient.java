@@ -55,6 +55,8 @@ public class NetClient implements ApplicationListener{
     private long lastSnapshotTimestamp;
     /** Last sent client snapshot ID. */
     private int lastSent;
+    /** ID of the last applied entity delta packet. Older packets are discarded. */
+    private int lastDeltaPacket;
 
     /** List of entities that were removed, and need not be added while syncing. */
     private IntSet removed = new IntSet();
@@ -446,6 +448,10 @@ public class NetClient implements ApplicationListener{
         int id = input.readInt();
         byte typeID = input.readByte();
 
+        readSyncEntity(id, typeID, read);
+    }
+
+    static void readSyncEntity(int id, byte typeID, Reads read){
         Syncc entity = Groups.sync.getByID(id);
         boolean add = false, created = false;
 
@@ -494,6 +500,56 @@ public class NetClient implements ApplicationListener{
         }
     }
 
+    @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
+    public static void entitySnapshotDelta(int packet, short amount, byte[] data){
+        //the server considers every older unacknowledged packet lost, so late packets must not be applied
+        if(packet <= netClient.lastDeltaPacket) return;
+        netClient.lastDeltaPacket = packet;
+
+        boolean resync = false;
+
+        try{
+            netClient.lastSnapshotTimestamp = Time.millis();
+            netClient.byteStream.setBytes(data);
+            DataInputStream input = netClient.dataStream;
+            Reads read = Reads.get(input);
+
+            for(int j = 0; j < amount; j++){
+                int id = input.readInt();
+                byte typeID = input.readByte();
+
+                if(input.readBoolean()){
+                    readSyncEntity(id, typeID, read);
+                }else{
+                    long mask = 0;
+                    int shift = 0, b;
+                    do{
+                        b = input.readUnsignedByte();
+                        mask |= (long)(b & 0x7F) << shift;
+                        shift += 7;
+                    }while((b & 0x80) != 0);
+
+                    Syncc entity = Groups.sync.getByID(id);
+                    if(entity == null && id == player.id()) entity = player;
+
+                    //the field lengths are unknown without an entity, so the rest of the packet can't be read
+                    if(entity == null){
+                        resync = true;
+                        break;
+                    }
+
+                    entity.readSyncDelta(read, mask);
+                }
+            }
+        }catch(Exception e){
+            //don't disconnect, just log it and request everything again
+            Log.err("Error reading entity snapshot delta", e);
+            resync = true;
+        }
+
+        Call.entitySnapshotAck(packet, resync);
+    }
+
     @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
     public static void hiddenSnapshot(IntSeq ids){
         for(int i = 0; i < ids.size; i++){
@@ -638,6 +694,7 @@ public class NetClient implements ApplicationListener{
         quietReset = false;
         quiet = false;
         lastSent = 0;
+        lastDeltaPacket = 0;
         lastSnapshotTimestamp = 0;
 
         Groups.clear();
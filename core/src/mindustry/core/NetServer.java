@@ -36,7 +36,10 @@ public class NetServer implements ApplicationListener{
     /** note that snapshots are compressed, so the max snapshot size here is above the typical UDP safe limit */
     private static final int maxSnapshotSize = 800;
     private static final int timerBlockSync = 0, timerHealthSync = 1;
+    /** Time in which every synced building is sent, or with a rolling block sync, serialized and checked for changes once. */
     private static final float blockSyncTime = 60 * 6, healthSyncTime = 30;
+    /** Every Nth block sync cycle sends unchanged buildings as well, since block snapshots are unreliable. */
+    private static final int blockSyncRefreshCycles = 5;
     private static final FloatBuffer fbuffer = FloatBuffer.allocate(20);
     private static final Writes dataWrites = new Writes(null);
     private static final IntSeq hiddenIds = new IntSeq();
@@ -44,6 +47,8 @@ public class NetServer implements ApplicationListener{
     private static final Vec2 vector = new Vec2();
     /** If a player goes away of their server-side coordinates by this distance, they get teleported back. */
     private static final float correctDist = tilesize * 14f;
+    /** area around a player's view in which entities are synced in every snapshot */
+    private static final float interestMargin = tilesize * 12f;
 
     public Administration admins = new Administration();
     public CommandHandler clientCommands = new CommandHandler("/");
@@ -98,6 +103,10 @@ public class NetServer implements ApplicationListener{
     private boolean closing = false, pvpAutoPaused = true;
     private Interval timer = new Interval(10);
     private IntSet buildHealthChanged = new IntSet();
+    /** Position of the rolling block sync in Groups.build. */
+    private int blockSyncIndex, blockSyncCycle;
+    /** Amount of buildings that should be checked by the rolling block sync, accumulated over frames. */
+    private float blockSyncProgress;
 
     /** Current kick session. */
     public @Nullable VoteSession currentlyKicking = null;
@@ -115,6 +124,19 @@ public class NetServer implements ApplicationListener{
     private ReusableByteOutStream syncStream = new ReusableByteOutStream();
     /** Data stream for writing player sync data to. */
     private DataOutputStream dataStream = new DataOutputStream(syncStream);
+    /** Stream for writing the sync data of a single building to, to check whether it changed. */
+    private ReusableByteOutStream blockStream = new ReusableByteOutStream();
+    private Writes blockWrites = new Writes(new DataOutputStream(blockStream));
+    /** Entity sync data shared between the snapshots of all players. */
+    private EntitySnapshotEncoder snapshotEncoder = new EntitySnapshotEncoder();
+    /** Incremented every sync, so that entities are encoded once per sync. */
+    private long syncId;
+    private long lastEntitySync;
+    /** IDs of entities written in the current delta packet. */
+    private IntSeq packetEntities = new IntSeq();
+    /** Area of interest of the player that is currently being synced. */
+    private Rect interestRect = new Rect();
+    private int interestInterval;
     /** Packet handlers for custom types of messages. */
     private ObjectMap<String, Seq<Cons2<Player, String>>> customPacketHandlers = new ObjectMap<>();
     /** Packet handlers for custom types of messages - binary version. */
@@ -124,6 +146,13 @@ public class NetServer implements ApplicationListener{
 
     public NetServer(){
 
+        //entity IDs are not preserved across maps, so old delta baselines are meaningless
+        Events.on(WorldLoadEvent.class, e -> {
+            for(NetConnection con : net.getConnections()){
+                con.baselines.clear();
+            }
+        });
+
         net.handleServer(Connect.class, (con, connect) -> {
             Events.fire(new ConnectionEvent(con));
 
@@ -501,6 +530,7 @@ public class NetServer implements ApplicationListener{
     }
 
     public void sendWorldData(Player player){
+        player.con.baselines.clear();
         ByteArrayOutputStream stream = new ByteArrayOutputStream();
         DeflaterOutputStream def = new FastDeflaterOutputStream(stream);
         NetworkIO.writeWorld(player, def);
@@ -926,18 +956,55 @@ public class NetServer implements ApplicationListener{
         }
     }
 
-    /** Sends a block snapshot to all players. */
+    /** Sends a block snapshot of all synced buildings to all players. */
     public void writeBlockSnapshots() throws IOException{
+        blockSyncIndex = 0;
+        writeBlockSnapshots(Groups.build.size(), true);
+    }
+
+    /**
+     * Continues the rolling block sync, sending the buildings whose sync data changed since it was last sent.
+     * Only buildings marked with {@link Building#syncChanged()} are serialized; their data is then compared with a 64-bit hash of what was last sent.
+     * Every {@link #blockSyncRefreshCycles}th pass serializes and sends all buildings, which bounds how long a missed change can stay unsent.
+     * @param checked how many buildings to check; only the changed ones among them are sent
+     * @param all whether to send unchanged buildings as well
+     */
+    void writeBlockSnapshots(int checked, boolean all) throws IOException{
         syncStream.reset();
 
         short sent = 0;
-        for(Building entity : Groups.build){
+        for(int i = 0; i < checked; i++){
+            if(blockSyncIndex >= Groups.build.size()){
+                if(Groups.build.size() == 0) break;
+                blockSyncIndex = 0;
+                blockSyncCycle++;
+            }
+
+            Building entity = Groups.build.index(blockSyncIndex++);
             if(!entity.block.sync) continue;
+
+            boolean refresh = all || blockSyncCycle % blockSyncRefreshCycles == 0;
+            if(!entity.syncDirty && !refresh) continue;
+            entity.syncDirty = false;
+
+            blockStream.reset();
+            entity.writeSync(blockWrites);
+
+            //FNV-1a
+            byte[] bytes = blockStream.getBytes();
+            int length = blockStream.size();
+            long hash = 0xcbf29ce484222325L;
+            for(int b = 0; b < length; b++){
+                hash = (hash ^ (bytes[b] & 0xff)) * 0x100000001b3L;
+            }
+
+            if(hash == entity.lastSyncHash && !refresh) continue;
+            entity.lastSyncHash = hash;
             sent++;
 
             dataStream.writeInt(entity.pos());
             dataStream.writeShort(entity.block.id);
-            entity.writeSync(Writes.get(dataStream));
+            dataStream.write(bytes, 0, length);
 
             if(syncStream.size() > maxSnapshotSize){
                 dataStream.close();
@@ -977,21 +1044,33 @@ public class NetServer implements ApplicationListener{
 
         syncStream.reset();
 
+        if(Config.deltaSnapshots.bool()){
+            writeEntityDeltas(player);
+            player.con.snapshotsSent++;
+            return;
+        }
+
         hiddenIds.clear();
         int sent = 0;
+        updateInterest(player);
+
+        var encoder = snapshotEncoder;
+        encoder.encode(syncId, false);
+        byte[] bytes = encoder.bytes();
+
+        for(int i = 0; i < encoder.size(); i++){
+            Syncc entity = encoder.get(i);
 
-        for(Syncc entity : Groups.sync){
             //TODO write to special list
             if(entity.isSyncHidden(player)){
                 hiddenIds.add(entity.id());
                 continue;
             }
 
-            //write all entities now
-            dataStream.writeInt(entity.id()); //write id
-            dataStream.writeByte(entity.classId() & 0xFF); //write type ID
-            entity.beforeWrite();
-            entity.writeSync(Writes.get(dataStream)); //write entity
+            if(!isInterested(player, entity)) continue;
+
+            //id, type ID and sync data, encoded once for all players
+            dataStream.write(bytes, encoder.start(i), encoder.length(i));
 
             sent++;
 
@@ -1016,6 +1095,143 @@ public class NetServer implements ApplicationListener{
         player.con.snapshotsSent++;
     }
 
+    /** Writes only the fields of entities that changed since the last data sent to the player. See {@link EntityBaselines}. */
+    void writeEntityDeltas(Player player) throws IOException{
+        var baselines = player.con.baselines;
+        baselines.prune();
+        baselines.beginSnapshot();
+
+        hiddenIds.clear();
+        packetEntities.clear();
+        int sent = 0;
+        updateInterest(player);
+
+        var encoder = snapshotEncoder;
+        encoder.encode(syncId, true);
+        byte[] bytes = encoder.bytes();
+        int[] fieldOffsets = encoder.fieldOffsets();
+
+        for(int e = 0; e < encoder.size(); e++){
+            Syncc entity = encoder.get(e);
+
+            if(entity.isSyncHidden(player)){
+                hiddenIds.add(entity.id());
+                //the client may discard hidden entities, so send them in full when they become visible again
+                baselines.remove(entity.id());
+                continue;
+            }
+
+            if(!isInterested(player, entity)) continue;
+
+            //fields are encoded separately to find which ones changed
+            int first = encoder.firstField(e), fields = encoder.fields(e);
+            var base = baselines.get(entity.id());
+            boolean full = base == null || base.fields != fields;
+            long mask = 0;
+
+            if(!full){
+                for(int i = 0; i < fields; i++){
+                    if(!base.equals(i, bytes, fieldOffsets, first)){
+                        mask |= 1L << i;
+                    }
+                }
+
+                //nothing changed, and the client has already been told that the entity stopped changing
+                if(mask == 0 && !base.changed) continue;
+            }
+
+            dataStream.writeInt(entity.id());
+            dataStream.writeByte(entity.classId() & 0xFF);
+            dataStream.writeBoolean(full);
+
+            if(full){
+                dataStream.write(bytes, encoder.start(e), encoder.length(e));
+            }else{
+                //mask as a variable length integer, since most entities only change a few low fields
+                long value = mask;
+                while((value & ~0x7FL) != 0){
+                    dataStream.writeByte((int)((value & 0x7F) | 0x80));
+                    value >>>= 7;
+                }
+                dataStream.writeByte((int)value);
+
+                for(int i = 0; i < fields; i++){
+                    if((mask & (1L << i)) != 0){
+                        dataStream.write(bytes, fieldOffsets[first + i], fieldOffsets[first + i + 1] - fieldOffsets[first + i]);
+                    }
+                }
+            }
+
+            base = baselines.obtain(entity.id());
+            base.set(bytes, fieldOffsets, first, fields);
+            base.changed = full || mask != 0;
+
+            packetEntities.add(entity.id());
+            sent++;
+
+            if(syncStream.size() > maxSnapshotSize){
+                sendEntityDeltas(player, sent);
+                sent = 0;
+            }
+        }
+
+        if(sent > 0){
+            sendEntityDeltas(player, sent);
+        }
+
+        if(hiddenIds.size > 0){
+            Call.hiddenSnapshot(player.con, hiddenIds);
+        }
+    }
+
+    /** Sets up the area of interest of a player: its view and the surroundings of its unit, plus a margin. */
+    void updateInterest(Player player){
+        var con = player.con;
+        interestInterval = Config.interestSyncInterval.num();
+
+        //no view information has been received yet
+        if(con.viewWidth <= 0f || con.viewHeight <= 0f){
+            interestInterval = 1;
+            return;
+        }
+
+        interestRect.setCentered(con.viewX, con.viewY, con.viewWidth + interestMargin * 2f, con.viewHeight + interestMargin * 2f);
+        if(!player.dead()){
+            interestRect.merge(Tmp.r1.setCentered(player.unit().x, player.unit().y, interestMargin * 2f));
+        }
+    }
+
+    /**
+     * @return whether an entity should be written in this snapshot for a player. Entities outside the area of interest are only written
+     * in every {@link Config#interestSyncInterval}th snapshot, staggered by ID so that they are not all sent at once.
+     * Positions are checked directly instead of through the unit quadtree, since that is built before entities update, and would miss
+     * units that were created in the current frame.
+     */
+    boolean isInterested(Player player, Syncc entity){
+        if(interestInterval <= 1 || !(entity instanceof Posc pos) || entity instanceof Playerc || interestRect.contains(pos.getX(), pos.getY())){
+            return true;
+        }
+        return (player.con.snapshotsSent + entity.id()) % interestInterval == 0;
+    }
+
+    private void sendEntityDeltas(Player player, int amount) throws IOException{
+        dataStream.close();
+
+        int packet = player.con.baselines.nextPacket();
+        Call.entitySnapshotDelta(player.con, packet, (short)amount, syncStream.toByteArray());
+        player.con.baselines.sent(packet, packetEntities);
+
+        packetEntities.clear();
+        syncStream.reset();
+    }
+
+    @Remote(targets = Loc.client, unreliable = true)
+    public static void entitySnapshotAck(Player player, int packet, boolean resync){
+        if(player.con != null){
+            player.con.baselines.ack(packet, resync);
+        }
+    }
+
     public String fixName(String name){
         name = name.trim().replace("\n", "").replace("\t", "");
         if(name.equals("[") || name.equals("]")){
@@ -1068,6 +1284,12 @@ public class NetServer implements ApplicationListener{
     void sync(){
         try{
             int interval = Config.snapshotInterval.num();
+            syncId++;
+
+            //all players are synced at the same time, so entities only need to be encoded once
+            boolean entitySync = Time.timeSinceMillis(lastEntitySync) >= interval;
+            if(entitySync) lastEntitySync = Time.millis();
+
             Groups.player.each(p -> !p.isLocal(), player -> {
                 if(player.con == null || !player.con.isConnected()){
                     onDisconnect(player, "disappeared");
@@ -1076,7 +1298,7 @@ public class NetServer implements ApplicationListener{
 
                 var connection = player.con;
 
-                if(Time.timeSinceMillis(connection.syncTime) < interval || !connection.hasConnected) return;
+                if(!entitySync || !connection.hasConnected) return;
 
                 connection.syncTime = Time.millis();
 
@@ -1087,8 +1309,18 @@ public class NetServer implements ApplicationListener{
                 }
             });
 
-            if(Groups.player.size() > 0 && Core.settings.getBool("blocksync") && timer.get(timerBlockSync, blockSyncTime)){
-                writeBlockSnapshots();
+            if(Groups.player.size() > 0 && Core.settings.getBool("blocksync")){
+                if(Config.rollingBlockSync.bool()){
+                    //spread checking buildings over the block sync time instead of sending them all at once
+                    blockSyncProgress += Groups.build.size() * Time.delta / blockSyncTime;
+                    int checked = (int)blockSyncProgress;
+                    if(checked > 0){
+                        blockSyncProgress -= checked;
+                        writeBlockSnapshots(checked, false);
+                    }
+                }else if(timer.get(timerBlockSync, blockSyncTime)){
+                    writeBlockSnapshots();
+                }
             }
 
             if(Groups.player.size() > 0 && buildHealthChanged.size > 0 && timer.get(timerHealthSync, healthSyncTime)){
@@ -9,7 +9,12 @@ public enum PerfCounter{
     update,
     entityUpdate,
     ui,
-    render;
+    render,
+    /** time the main thread spends waiting for async processes to finish */
+    asyncWait,
+    /** async processes */
+    physics,
+    fog;
 
     public static final PerfCounter[] all = values();
 
@@ -0,0 +1,344 @@
+package mindustry.entities;
+
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.Teams.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Finds the collisions of all bullets with units in one pass. Bullet and unit hitboxes are copied into arrays, units are bucketed into a grid,
+ * and the swept hitbox test runs over these arrays, on worker threads when there are many bullets.
+ * Only the hits are handled on the main thread, in bullet order, with the same checks as {@link EntityCollisions}.
+ */
+public class BulletCollisions{
+    /** Whether bullet collisions are found in a batch. Set from {@link Config#batchCollisions} by Logic. */
+    public static boolean active;
+
+    /** size of a grid cell in world units */
+    static final float cellSize = tilesize * 8f;
+    /** minimum amount of bullets per task */
+    static final int minShard = 512;
+
+    final EntityCollisions collisions;
+
+    //bullets that can collide, by index
+    Bullet[] bullets = {};
+    float[] bulletX = {}, bulletY = {}, bulletRect = {}, bulletDelta = {};
+    int[] bulletTeam = {};
+    int bulletCount;
+
+    //units of all present teams, by index
+    Unit[] units = {};
+    float[] unitRect = {}, unitDelta = {};
+    int[] unitTeam = {}, unitCell = {};
+    int unitCount;
+    float unitMargin;
+
+    //units sorted by grid cell
+    int gridWidth, gridHeight;
+    float gridX, gridY;
+    int[] cellStart = {}, cellUnits = {};
+
+    final IntSet handled = new IntSet();
+    final Seq<Bullet> added = new Seq<>(Bullet.class);
+    final Seq<Shard> shards = new Seq<>();
+    final Seq<ForkJoinTask<?>> tasks = new Seq<>();
+    final Rect rect = new Rect();
+
+    @Nullable ForkJoinPool pool;
+
+    public BulletCollisions(EntityCollisions collisions){
+        this.collisions = collisions;
+    }
+
+    /** Finds and handles all collisions of bullets with units. */
+    public void collide(){
+        handled.clear();
+        snapshotBullets();
+        snapshotUnits();
+        bucketUnits();
+        findHits();
+
+        //handle hits on the main thread, as entities are removed and bullets are created
+        for(int s = 0; s < shards.size; s++){
+            Shard shard = shards.items[s];
+            int[] hits = shard.hits.items;
+            float[] points = shard.points.items;
+
+            for(int i = 0; i < shard.hits.size; i += 2){
+                Bullet bullet = bullets[hits[i]];
+                Unit unit = units[hits[i + 1]];
+                //bullets stop checking after they were removed
+                if(!bullet.isAdded()) continue;
+
+                if(bullet.collides(unit) && unit.collides(bullet)){
+                    float x = points[i], y = points[i + 1];
+                    bullet.collision(unit, x, y);
+                    unit.collision(bullet, x, y);
+                }
+            }
+        }
+
+        //bullets that were created by hits are checked one by one, like they would be in the group loop
+        while(true){
+            added.clear();
+            for(int i = 0; i < Groups.bullet.size(); i++){
+                Bullet bullet = Groups.bullet.index(i);
+                if(handled.add(bullet.id)){
+                    added.add(bullet);
+                }
+            }
+            if(added.isEmpty()) break;
+
+            for(int i = 0; i < added.size; i++){
+                if(added.items[i].isAdded()){
+                    collisions.updateCollision(added.items[i]);
+                }
+            }
+        }
+
+        Arrays.fill(bullets, 0, bulletCount, null);
+        Arrays.fill(units, 0, unitCount, null);
+        added.clear();
+    }
+
+    void snapshotBullets(){
+        int size = Groups.bullet.size();
+        if(bullets.length < size){
+            int cap = Math.max(size, bullets.length * 7 / 4);
+            bullets = new Bullet[cap];
+            bulletX = new float[cap];
+            bulletY = new float[cap];
+            bulletRect = new float[cap * 4];
+            bulletDelta = new float[cap * 2];
+            bulletTeam = new int[cap];
+        }
+
+        bulletCount = 0;
+        for(int i = 0; i < size; i++){
+            Bullet bullet = Groups.bullet.index(i);
+            handled.add(bullet.id);
+            if(!bullet.type.collides) continue;
+
+            int b = bulletCount++;
+            bullet.hitbox(rect);
+            bullets[b] = bullet;
+            bulletX[b] = bullet.x;
+            bulletY[b] = bullet.y;
+            bulletRect[b * 4] = rect.x;
+            bulletRect[b * 4 + 1] = rect.y;
+            bulletRect[b * 4 + 2] = rect.width;
+            bulletRect[b * 4 + 3] = rect.height;
+            bulletDelta[b * 2] = bullet.x - bullet.lastX;
+            bulletDelta[b * 2 + 1] = bullet.y - bullet.lastY;
+            bulletTeam[b] = bullet.team.id;
+        }
+    }
+
+    void snapshotUnits(){
+        Seq<TeamData> present = state.teams.present;
+        int size = 0;
+        for(int i = 0; i < present.size; i++){
+            size += present.items[i].units.size;
+        }
+
+        if(units.length < size){
+            int cap = Math.max(size, units.length * 7 / 4);
+            units = new Unit[cap];
+            unitRect = new float[cap * 4];
+            unitDelta = new float[cap * 2];
+            unitTeam = new int[cap];
+            unitCell = new int[cap];
+        }
+
+        unitCount = 0;
+        unitMargin = 0f;
+        for(int t = 0; t < present.size; t++){
+            var teamUnits = present.items[t].units;
+            for(int i = 0; i < teamUnits.size; i++){
+                Unit unit = teamUnits.items[i];
+                int u = unitCount++;
+                unit.hitbox(rect);
+                units[u] = unit;
+                unitRect[u * 4] = rect.x;
+                unitRect[u * 4 + 1] = rect.y;
+                unitRect[u * 4 + 2] = rect.width;
+                unitRect[u * 4 + 3] = rect.height;
+                unitDelta[u * 2] = unit.x - unit.lastX;
+                unitDelta[u * 2 + 1] = unit.y - unit.lastY;
+                unitTeam[u] = unit.team.id;
+                unitMargin = Math.max(unitMargin, Math.max(rect.width, rect.height) / 2f);
+            }
+        }
+    }
+
+    /** Sorts units into grid cells by the center of their hitbox, keeping their order inside each cell. */
+    void bucketUnits(){
+        world.getQuadBounds(rect);
+        gridX = rect.x;
+        gridY = rect.y;
+        gridWidth = Math.max(Mathf.ceil(rect.width / cellSize), 1);
+        gridHeight = Math.max(Mathf.ceil(rect.height / cellSize), 1);
+
+        int cells = gridWidth * gridHeight;
+        if(cellStart.length < cells + 1){
+            cellStart = new int[cells + 1];
+        }
+        if(cellUnits.length < unitCount){
+            cellUnits = new int[unitCount];
+        }
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        for(int u = 0; u < unitCount; u++){
+            int cell = cellX(unitRect[u * 4] + unitRect[u * 4 + 2] / 2f) + cellY(unitRect[u * 4 + 1] + unitRect[u * 4 + 3] / 2f) * gridWidth;
+            unitCell[u] = cell;
+            cellStart[cell + 1]++;
+        }
+
+        for(int i = 0; i < cells; i++){
+            cellStart[i + 1] += cellStart[i];
+        }
+
+        //cellStart is used as the insertion position here, and shifted back afterwards
+        for(int u = 0; u < unitCount; u++){
+            cellUnits[cellStart[unitCell[u]]++] = u;
+        }
+        for(int i = cells; i > 0; i--){
+            cellStart[i] = cellStart[i - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    void findHits(){
+        int threads = Math.max(OS.cores - 1, 1);
+        int shardSize = bulletCount < minShard * 2 || threads <= 1 ? Math.max(bulletCount, 1) : Math.max(bulletCount / (threads * 4), minShard);
+        int shardCount = (bulletCount + shardSize - 1) / shardSize;
+
+        while(shards.size < shardCount){
+            shards.add(new Shard());
+        }
+        shards.truncate(shardCount);
+
+        for(int s = 0; s < shardCount; s++){
+            Shard shard = shards.items[s];
+            shard.from = s * shardSize;
+            shard.to = Math.min(shard.from + shardSize, bulletCount);
+        }
+
+        if(shardCount <= 1 || unitCount == 0){
+            for(int s = 0; s < shardCount; s++){
+                shards.items[s].run();
+            }
+            return;
+        }
+
+        if(pool == null){
+            pool = new ForkJoinPool(threads);
+        }
+
+        tasks.clear();
+        for(int s = 0; s < shardCount; s++){
+            tasks.add(pool.submit(shards.items[s]));
+        }
+        for(var task : tasks){
+            task.join();
+        }
+        tasks.clear();
+    }
+
+    int cellX(float x){
+        return Mathf.clamp((int)((x - gridX) / cellSize), 0, gridWidth - 1);
+    }
+
+    int cellY(float y){
+        return Mathf.clamp((int)((y - gridY) / cellSize), 0, gridHeight - 1);
+    }
+
+    /** Finds the hits of a range of bullets. Only reads the arrays, so shards can run at the same time. */
+    class Shard implements Runnable{
+        /** pairs of bullet and unit indices */
+        final IntSeq hits = new IntSeq();
+        /** collision points, at the same index as the hit */
+        final FloatSeq points = new FloatSeq();
+        final Vec2 out = new Vec2();
+        int from, to;
+
+        @Override
+        public void run(){
+            hits.clear();
+            points.clear();
+            if(unitCount == 0) return;
+
+            for(int b = from; b < to; b++){
+                int first = hits.size;
+                int team = bulletTeam[b];
+                float x = bulletRect[b * 4], y = bulletRect[b * 4 + 1], w = bulletRect[b * 4 + 2], h = bulletRect[b * 4 + 3];
+                float dx = bulletDelta[b * 2], dy = bulletDelta[b * 2 + 1];
+
+                //hitbox at the last position, and the area swept by the hitbox since then
+                float lx = x - dx, ly = y - dy;
+                float sx = Math.min(x, lx), sy = Math.min(y, ly), sw = Math.max(x, lx) + w - sx, sh = Math.max(y, ly) + h - sy;
+
+                int minx = cellX(sx - unitMargin), miny = cellY(sy - unitMargin), maxx = cellX(sx + sw + unitMargin), maxy = cellY(sy + sh + unitMargin);
+
+                for(int cy = miny; cy <= maxy; cy++){
+                    for(int cx = minx; cx <= maxx; cx++){
+                        int cell = cx + cy * gridWidth;
+                        for(int c = cellStart[cell], end = cellStart[cell + 1]; c < end; c++){
+                            int u = cellUnits[c];
+                            if(unitTeam[u] == team) continue;
+
+                            float ux = unitRect[u * 4], uy = unitRect[u * 4 + 1], uw = unitRect[u * 4 + 2], uh = unitRect[u * 4 + 3];
+                            if(!(sx < ux + uw && sx + sw > ux && sy < uy + uh && sy + sh > uy)) continue;
+
+                            float udx = unitDelta[u * 2], udy = unitDelta[u * 2 + 1];
+                            float ulx = ux - udx, uly = uy - udy;
+
+                            if(lx < ulx + uw && lx + w > ulx && ly < uly + uh && ly + h > uly){
+                                add(b, u, bulletX[b], bulletY[b]);
+                            }else if(EntityCollisions.collide(lx, ly, w, h, dx, dy, ulx, uly, uw, uh, udx, udy, out)){
+                                add(b, u, out.x, out.y);
+                            }
+                        }
+                    }
+                }
+
+                sort(first);
+            }
+        }
+
+        void add(int bullet, int unit, float x, float y){
+            hits.add(bullet, unit);
+            points.add(x, y);
+        }
+
+        /** Sorts the hits of one bullet by unit index, so they are handled in team order regardless of grid cells. */
+        void sort(int first){
+            int[] hits = this.hits.items;
+            float[] points = this.points.items;
+
+            for(int i = first + 2; i < this.hits.size; i += 2){
+                int unit = hits[i + 1];
+                float px = points[i], py = points[i + 1];
+                int j = i - 2;
+                while(j >= first && hits[j + 1] > unit){
+                    hits[j + 3] = hits[j + 1];
+                    points[j + 2] = points[j];
+                    points[j + 3] = points[j + 1];
+                    j -= 2;
+                }
+                hits[j + 3] = unit;
+                points[j + 2] = px;
+                points[j + 3] = py;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class EntityCollisions{
     private Seq<Hitboxc> arrOut = new Seq<>(Hitboxc.class);
     private Cons<Hitboxc> hitCons = this::updateCollision;
     private Cons<QuadTree> treeCons = tree -> tree.intersect(r2, arrOut);
+    private BulletCollisions bullets = new BulletCollisions(this);
 
     public void moveCheck(Hitboxc entity, float deltax, float deltay, SolidPred solidCheck){
         if(!solidCheck.solid(entity.tileX(), entity.tileY())){
@@ -122,6 +123,18 @@ public class EntityCollisions{
     @SuppressWarnings("unchecked")
     public <T extends Hitboxc> void updatePhysics(EntityGroup<T> group){
         var tree = group.tree();
+
+        if(tree instanceof UnitIndex index){
+            //only units that changed cells are moved, and removed units are dropped at the end
+            index.begin();
+            group.each(s -> {
+                s.updateLastPosition();
+                index.insert((Unit)s);
+            });
+            index.finish();
+            return;
+        }
+
         tree.clear();
 
         group.each(s -> {
@@ -218,10 +231,15 @@ public class EntityCollisions{
 
     @SuppressWarnings("unchecked")
     public <T extends Hitboxc> void collide(EntityGroup<T> groupa){
+        if(groupa == Groups.bullet && BulletCollisions.active){
+            bullets.collide();
+            return;
+        }
+
         groupa.each((Cons<T>)hitCons);
     }
 
-    private void updateCollision(Hitboxc solid){
+    void updateCollision(Hitboxc solid){
         solid.hitbox(r1);
         r1.x += (solid.lastX() - solid.getX());
         r1.y += (solid.lastY() - solid.getY());
@@ -21,6 +21,7 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
     private final Rect viewport = new Rect();
     private final Rect intersectRect = new Rect();
     private final EntityIndexer indexer;
+    private final Class<T> type;
     private IntMap<T> map;
     private QuadTree tree;
     private boolean clearing;
@@ -43,9 +44,10 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
 
     public EntityGroup(Class<T> type, boolean spatial, boolean mapping, EntityIndexer indexer){
         array = new Seq<>(false, 32, type);
+        this.type = type;
 
         if(spatial){
-            tree = new QuadTree<>(new Rect(0, 0, 0, 0));
+            tree = createTree(new Rect(0, 0, 0, 0));
         }
 
         if(mapping){
@@ -168,10 +170,15 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
     /** Resizes the internal quadtree, if it is enabled.*/
     public void resize(float x, float y, float w, float h){
         if(tree != null){
-            tree = new QuadTree<>(new Rect(x, y, w, h));
+            tree = createTree(new Rect(x, y, w, h));
         }
     }
 
+    /** Units are kept in a {@link UnitIndex}, which is updated incrementally; other entities are inserted into a new quadtree every frame. */
+    private QuadTree createTree(Rect bounds){
+        return type == Unit.class ? new UnitIndex(bounds) : new QuadTree<>(bounds);
+    }
+
     public boolean isEmpty(){
         return array.size == 0;
     }
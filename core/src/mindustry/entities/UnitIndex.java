@@ -0,0 +1,217 @@
+package mindustry.entities;
+
+import arc.func.*;
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import mindustry.gen.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * A loose grid of units that is updated incrementally: units are only moved to another cell when their center crosses into it,
+ * and units that were not updated since the last {@link #begin()} are removed in {@link #finish()}.
+ * Queries have the same results as a {@link QuadTree}, so this can be used anywhere a unit quadtree is expected.
+ * Used for the trees of {@link mindustry.gen.Groups#unit} and of each team.
+ */
+public class UnitIndex extends QuadTree<Unit>{
+    /** size of a cell in world units */
+    static final float cellSize = tilesize * 8f;
+    /** extra query range for units that moved after the last update; units that moved further than this may not be found until they are inserted again */
+    public static final float moveMargin = tilesize * 4f;
+
+    final float gx, gy;
+    final int cw, ch;
+    final Seq<Unit>[] cells;
+    /** unit ID -> entry */
+    final IntMap<Entry> entries = new IntMap<>();
+    final Seq<Entry> freeEntries = new Seq<>(false);
+
+    int stamp;
+    /** largest half hitbox size of all units that were added */
+    float maxHalfSize;
+
+    @SuppressWarnings("unchecked")
+    public UnitIndex(Rect bounds){
+        super(bounds);
+
+        gx = bounds.x;
+        gy = bounds.y;
+        cw = Math.max(Mathf.ceil(bounds.width / cellSize), 1);
+        ch = Math.max(Mathf.ceil(bounds.height / cellSize), 1);
+        cells = new Seq[cw * ch];
+    }
+
+    /** Begins an update. Every unit that is still present must be inserted again before {@link #finish()}. */
+    public void begin(){
+        stamp ++;
+    }
+
+    /** Removes all units that were not inserted since the last {@link #begin()}. */
+    public void finish(){
+        var it = entries.values().iterator();
+        while(it.hasNext()){
+            var entry = it.next();
+            if(entry.stamp != stamp){
+                cells[entry.cell].remove(entry.unit, true);
+                entry.unit = null;
+                freeEntries.add(entry);
+                it.remove();
+            }
+        }
+    }
+
+    /** Adds the unit, or moves it to the cell it is currently in. */
+    @Override
+    public void insert(Unit unit){
+        int cell = cell(unit.x, unit.y);
+        var entry = entries.get(unit.id);
+
+        if(entry == null){
+            entry = freeEntries.isEmpty() ? new Entry() : freeEntries.pop();
+            entry.unit = unit;
+            entry.cell = cell;
+            entries.put(unit.id, entry);
+            cell(cell).add(unit);
+        }else if(entry.cell != cell){
+            cells[entry.cell].remove(unit, true);
+            cell(cell).add(unit);
+            entry.cell = cell;
+        }
+
+        entry.stamp = stamp;
+        maxHalfSize = Math.max(maxHalfSize, unit.hitSize / 2f);
+    }
+
+    @Override
+    public boolean remove(Unit unit){
+        var entry = entries.remove(unit.id);
+        if(entry == null) return false;
+
+        cells[entry.cell].remove(unit, true);
+        entry.unit = null;
+        freeEntries.add(entry);
+        return true;
+    }
+
+    @Override
+    public void clear(){
+        for(var cell : cells){
+            if(cell != null) cell.clear();
+        }
+        for(var entry : entries.values()){
+            entry.unit = null;
+            freeEntries.add(entry);
+        }
+        entries.clear();
+        maxHalfSize = 0f;
+    }
+
+    @Override
+    public void intersect(float x, float y, float width, float height, Cons<Unit> out){
+        float margin = maxHalfSize + moveMargin;
+        int minx = cx(x - margin), miny = cy(y - margin), maxx = cx(x + width + margin), maxy = cy(y + height + margin);
+
+        for(int cy = miny; cy <= maxy; cy++){
+            for(int cx = minx; cx <= maxx; cx++){
+                var cell = cells[cx + cy * cw];
+                if(cell == null) continue;
+
+                var items = cell.items;
+                for(int i = 0; i < cell.size; i++){
+                    Unit unit = items[i];
+                    if(overlaps(unit, x, y, width, height)){
+                        out.get(unit);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void intersect(Rect rect, Cons<Unit> out){
+        intersect(rect.x, rect.y, rect.width, rect.height, out);
+    }
+
+    @Override
+    public void intersect(float x, float y, float width, float height, Seq<Unit> out){
+        float margin = maxHalfSize + moveMargin;
+        int minx = cx(x - margin), miny = cy(y - margin), maxx = cx(x + width + margin), maxy = cy(y + height + margin);
+
+        for(int cy = miny; cy <= maxy; cy++){
+            for(int cx = minx; cx <= maxx; cx++){
+                var cell = cells[cx + cy * cw];
+                if(cell == null) continue;
+
+                var items = cell.items;
+                for(int i = 0; i < cell.size; i++){
+                    Unit unit = items[i];
+                    if(overlaps(unit, x, y, width, height)){
+                        out.add(unit);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void intersect(Rect rect, Seq<Unit> out){
+        intersect(rect.x, rect.y, rect.width, rect.height, out);
+    }
+
+    @Override
+    public boolean any(float x, float y, float width, float height){
+        float margin = maxHalfSize + moveMargin;
+        int minx = cx(x - margin), miny = cy(y - margin), maxx = cx(x + width + margin), maxy = cy(y + height + margin);
+
+        for(int cy = miny; cy <= maxy; cy++){
+            for(int cx = minx; cx <= maxx; cx++){
+                var cell = cells[cx + cy * cw];
+                if(cell == null) continue;
+
+                var items = cell.items;
+                for(int i = 0; i < cell.size; i++){
+                    if(overlaps(items[i], x, y, width, height)){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void getObjects(Seq<Unit> out){
+        for(var entry : entries.values()){
+            out.add(entry.unit);
+        }
+    }
+
+    boolean overlaps(Unit unit, float x, float y, float width, float height){
+        hitbox(unit);
+        return tmp.x < x + width && tmp.x + tmp.width > x && tmp.y < y + height && tmp.y + tmp.height > y;
+    }
+
+    Seq<Unit> cell(int index){
+        var cell = cells[index];
+        if(cell == null) cells[index] = cell = new Seq<>(false, 8, Unit.class);
+        return cell;
+    }
+
+    int cell(float x, float y){
+        return cx(x) + cy(y) * cw;
+    }
+
+    int cx(float x){
+        return Mathf.clamp((int)((x - gx) / cellSize), 0, cw - 1);
+    }
+
+    int cy(float y){
+        return Mathf.clamp((int)((y - gy) / cellSize), 0, ch - 1);
+    }
+
+    static class Entry{
+        Unit unit;
+        int cell, stamp;
+    }
+}
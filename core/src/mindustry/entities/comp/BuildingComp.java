@@ -93,6 +93,10 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     transient float healSuppressionTime = -1f;
     transient float lastHealTime = -120f * 10f;
     transient Color suppressColor = Pal.sapBullet;
+    /** 64-bit hash of the sync data that was last sent to clients in a block snapshot. */
+    transient long lastSyncHash;
+    /** Whether the sync data may have changed since the rolling block sync last checked this building. See {@link #syncChanged()}. */
+    transient boolean syncDirty = true;
 
     private transient float lastDamageTime = -recentDamageTime;
     private transient float timeScale = 1f, timeScaleDuration;
@@ -757,6 +761,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         if(items == null) return 0;
         amount = Math.min(amount, items.get(item));
         noSleep();
+        syncChanged();
         items.remove(item, amount);
         return amount;
     }
@@ -764,6 +769,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     /** Handle a stack input. */
     public void handleStack(Item item, int amount, @Nullable Teamc source){
         noSleep();
+        syncChanged();
         items.add(item, amount);
     }
 
@@ -828,6 +834,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     }
 
     public void handleItem(Building source, Item item){
+        syncChanged();
         items.add(item, 1);
     }
 
@@ -840,6 +847,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     }
 
     public void handleLiquid(Building source, Liquid liquid, float amount){
+        syncChanged();
         liquids.add(liquid, amount);
     }
 
@@ -1365,6 +1373,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             updateLastAccess(builder.getPlayer());
         }
 
+        syncChanged();
+
         if(block.configurations.containsKey(type)){
             block.configurations.get(type).get(this, value);
         }else if(value instanceof Building build){
@@ -1994,6 +2004,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             netServer.buildHealthUpdate(self());
         }
 
+        syncChanged();
+
         indexer.notifyHealthChanged(self());
     }
 
@@ -2058,6 +2070,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void control(LAccess type, double p1, double p2, double p3, double p4){
         if(type == LAccess.enabled){
             enabled = !Mathf.zero((float)p1);
+            syncChanged();
         }
     }
 
@@ -2162,6 +2175,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void checkAllowUpdate(){
         if(!allowUpdate()){
             enabled = false;
+            syncChanged();
         }
     }
 
@@ -2184,9 +2198,19 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
         if(enabled || !block.noUpdateDisabled){
             updateTile();
+            //block state is changed field by field in updateTile, so it is not tracked more precisely than this
+            syncDirty = true;
         }
     }
 
+    /**
+     * Marks the sync data of this building as possibly changed, so that the rolling block sync serializes and checks it again.
+     * Buildings are marked in every update that runs {@link #updateTile()}, so this only needs to be called for changes from outside of it.
+     */
+    public void syncChanged(){
+        syncDirty = true;
+    }
+
     /** When a block is newly revealed outside of camera view range, it is updated on the minimap. */
     public void updateFogVisibility(){
         if(!wasVisible && !inFogTo(player.team())){
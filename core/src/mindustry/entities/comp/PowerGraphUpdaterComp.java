@@ -11,6 +11,10 @@ abstract class PowerGraphUpdaterComp implements Entityc{
 
     @Override
     public void update(){
-        graph.update();
+        if(ParallelPower.active){
+            ParallelPower.update(graph);
+        }else{
+            graph.update();
+        }
     }
 }
@@ -18,6 +18,12 @@ abstract class SyncComp implements Entityc{
     void writeSync(Writes write){}
     void readSyncManual(FloatBuffer buffer){}
     void writeSyncManual(FloatBuffer buffer){}
+    /** Writes the synced field with the specified index. @return false if there is no such field. */
+    boolean writeSyncField(Writes write, int field){
+        return false;
+    }
+    /** Reads the synced fields whose bits are set in the mask, as written by {@link #writeSyncField(Writes, int)}. */
+    void readSyncDelta(Reads read, long mask){}
     void afterSync(){}
     void interpolate(){}
 
@@ -15,24 +15,40 @@ import mindustry.io.*;
 import mindustry.world.meta.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import static mindustry.Vars.*;
 
 public final class FogControl implements CustomChunk{
     private static volatile int ww, wh;
     private static final int dynamicUpdateInterval = 1000 / 25; //25 FPS
-    private static final Object notifyStatic = new Object(), notifyDynamic = new Object();
+    private static final Object notifyStatic = new Object();
 
     /** indexed by team */
     private volatile @Nullable FogData[] fog;
 
+    /** circle spans by radius, see {@link #spans(int)} */
+    private static final IntMap<int[]> spanCache = new IntMap<>();
+
     private final LongSeq staticEvents = new LongSeq();
     private final LongSeq dynamicEventQueue = new LongSeq(), unitEventQueue = new LongSeq();
+    /** entity ID of each event in the dynamic event queue */
+    private final IntSeq dynamicIdQueue = new IntSeq(), unitIdQueue = new IntSeq();
+    /** team, first event index and last event index (exclusive) of each team in the dynamic event queue */
+    private final IntSeq dynamicTeamQueue = new IntSeq();
     /** access must be synchronized; accessed from both threads */
     private final LongSeq dynamicEvents = new LongSeq(100);
+    private final IntSeq dynamicIds = new IntSeq(100), dynamicTeams = new IntSeq();
+    /** copies of the dynamic events that are currently being drawn; only accessed while holding drawLock */
+    private final LongSeq drawEvents = new LongSeq(100);
+    private final IntSeq drawIds = new IntSeq(100), drawTeams = new IntSeq();
+    private final Object drawLock = new Object();
+    private final Seq<ForkJoinTask<?>> drawTasks = new Seq<>();
+    private @Nullable ForkJoinPool drawPool;
 
     private @Nullable Thread staticFogThread;
-    private @Nullable Thread dynamicFogThread;
+    /** whether dynamic events were queued since the last dynamic update */
+    private volatile boolean dynamicPending;
 
     private boolean justLoaded = false;
     private boolean loadedStatic = false;
@@ -141,11 +157,12 @@ public final class FogControl implements CustomChunk{
             staticFogThread = null;
         }
 
-        dynamicEvents.clear();
-        if(dynamicFogThread != null){
-            dynamicFogThread.interrupt();
-            dynamicFogThread = null;
+        synchronized(dynamicEvents){
+            dynamicEvents.clear();
+            dynamicIds.clear();
+            dynamicTeams.clear();
         }
+        dynamicPending = false;
     }
 
     /** @param initial whether this is the initial update; if true, does not update renderer */
@@ -206,15 +223,10 @@ public final class FogControl implements CustomChunk{
             staticFogThread.start();
         }
 
-        if(dynamicFogThread == null){
-            dynamicFogThread = new DynamicFogThread();
-            dynamicFogThread.setPriority(Thread.NORM_PRIORITY - 1);
-            dynamicFogThread.setDaemon(true);
-            dynamicFogThread.start();
-        }
-
         //clear to prepare for queuing fog radius from units and buildings
         dynamicEventQueue.clear();
+        dynamicIdQueue.clear();
+        dynamicTeamQueue.clear();
 
         //update fog visibility manually
         if(state.rules.fog && !headless && Groups.build.size() > 0){
@@ -246,6 +258,7 @@ public final class FogControl implements CustomChunk{
             if(!team.team.isOnlyAI()){
                 //separate for each team
                 unitEventQueue.clear();
+                unitIdQueue.clear();
 
                 FogData data = fog[team.team.id];
 
@@ -262,6 +275,7 @@ public final class FogControl implements CustomChunk{
 
                         //always update the dynamic events, but only *flush* the results when necessary?
                         unitEventQueue.add(event);
+                        unitIdQueue.add(unit.id);
 
                         if(unit.lastFogPos != pos){
                             pushEvent(event, false);
@@ -276,36 +290,59 @@ public final class FogControl implements CustomChunk{
                     data.dynamicUpdated = false;
                     data.lastDynamicMs = Time.millis();
 
+                    int start = dynamicEventQueue.size;
+
                     //add building updates
                     for(var build : indexer.getFlagged(team.team, BlockFlag.hasFogRadius)){
                         dynamicEventQueue.add(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id));
+                        dynamicIdQueue.add(build.id);
                     }
 
                     //add unit updates
                     dynamicEventQueue.addAll(unitEventQueue);
+                    dynamicIdQueue.addAll(unitIdQueue);
+
+                    //this team is redrawn even without any events, so that the last sources disappear
+                    dynamicTeamQueue.add(team.team.id, start, dynamicEventQueue.size);
                 }
             }
         }
 
-        if(dynamicEventQueue.size > 0){
+        if(dynamicTeamQueue.size > 0){
             //flush unit events over when something happens
             synchronized(dynamicEvents){
+                //keep the events of teams that were not drawn since the last flush and have no new events
+                for(int i = 0; i < dynamicTeams.size; i += 3){
+                    int team = dynamicTeams.items[i];
+                    if(!queuedTeam(team)){
+                        int from = dynamicTeams.items[i + 1], to = dynamicTeams.items[i + 2], start = dynamicEventQueue.size;
+                        dynamicTeamQueue.add(team, start, start + to - from);
+                        for(int j = from; j < to; j++){
+                            dynamicEventQueue.add(dynamicEvents.items[j]);
+                            dynamicIdQueue.add(dynamicIds.items[j]);
+                        }
+                    }
+                }
+
                 dynamicEvents.clear();
                 dynamicEvents.addAll(dynamicEventQueue);
+                dynamicIds.clear();
+                dynamicIds.addAll(dynamicIdQueue);
+                dynamicTeams.clear();
+                dynamicTeams.addAll(dynamicTeamQueue);
             }
             dynamicEventQueue.clear();
+            dynamicIdQueue.clear();
+            dynamicTeamQueue.clear();
 
             //force update so visibility doesn't have a pop-in
             if(justLoaded){
-                updateDynamic(new Bits(256));
+                updateDynamic();
                 justLoaded = false;
             }
 
-            //notify that it's time for rendering
-            //TODO this WILL block until it is done rendering, which is inherently problematic.
-            synchronized(notifyDynamic){
-                notifyDynamic.notify();
-            }
+            //the events are drawn by FogProcess at the beginning of the next frame
+            dynamicPending = true;
         }
 
         //wake up, it's time to draw some circles
@@ -360,79 +397,71 @@ public final class FogControl implements CustomChunk{
         }
     }
 
-    class DynamicFogThread extends Thread{
-        final Bits cleared = new Bits();
+    /** @return whether there are dynamic fog events that have not been drawn yet. */
+    public boolean hasDynamicUpdate(){
+        return dynamicPending;
+    }
 
-        DynamicFogThread(){
-            super("DynamicFogThread");
+    private boolean queuedTeam(int team){
+        for(int i = 0; i < dynamicTeamQueue.size; i += 3){
+            if(dynamicTeamQueue.items[i] == team) return true;
         }
+        return false;
+    }
 
-        @Override
-        public void run(){
+    /**
+     * Draws queued dynamic fog events. Called from {@link mindustry.async.FogProcess}.
+     * Each team is drawn incrementally: only sources that appeared, moved or disappeared since the last update of the team change its coverage.
+     * Teams are drawn in parallel.
+     */
+    public void updateDynamic(){
+        dynamicPending = false;
 
-            while(true){
-                try{
-                    synchronized(notifyDynamic){
-                        try{
-                            //wait until an event happens
-                            notifyDynamic.wait();
-                        }catch(InterruptedException e){
-                            //end thread
-                            return;
-                        }
-                    }
+        var fog = this.fog;
+        if(fog == null) return;
 
-                    updateDynamic(cleared);
+        synchronized(drawLock){
+            synchronized(dynamicEvents){
+                drawEvents.clear();
+                drawEvents.addAll(dynamicEvents);
+                drawIds.clear();
+                drawIds.addAll(dynamicIds);
+                drawTeams.clear();
+                drawTeams.addAll(dynamicTeams);
 
-                    //ignore, don't want to crash this thread
-                }catch(Exception e){
-                    //log for debugging
-                    e.printStackTrace();
-                }
+                dynamicEvents.clear();
+                dynamicIds.clear();
+                dynamicTeams.clear();
             }
-        }
-    }
-
-    void updateDynamic(Bits cleared){
-        cleared.clear();
 
-        //ugly sync
-        synchronized(dynamicEvents){
-            int size = dynamicEvents.size;
+            int teams = drawTeams.size / 3;
+            int threads = Math.min(OS.cores - 1, teams);
 
-            //draw step
-            for(int i = 0; i < size; i++){
-                long event = dynamicEvents.items[i];
-                int x = FogEvent.x(event), y = FogEvent.y(event), rad = FogEvent.radius(event), team = FogEvent.team(event);
-
-                if(rad <= 0) continue;
-
-                var data = fog[team];
-                if(data != null){
-
-                    //clear the buffer, since it is being re-drawn
-                    if(!cleared.get(team)){
-                        cleared.set(team);
+            if(threads > 1){
+                if(drawPool == null){
+                    drawPool = new ForkJoinPool(Math.max(OS.cores - 1, 1));
+                }
 
-                        data.write.clear();
+                drawTasks.clear();
+                for(int i = 0; i < drawTeams.size; i += 3){
+                    var data = fog[drawTeams.items[i]];
+                    int from = drawTeams.items[i + 1], to = drawTeams.items[i + 2];
+                    if(data != null){
+                        drawTasks.add(drawPool.submit(() -> data.draw(drawEvents, drawIds, from, to)));
                     }
-
-                    //radius is always +1 to keep up with visuals
-                    circle(data.write, x, y, rad + 1);
                 }
-            }
-            dynamicEvents.clear();
-        }
-
-        //swap step, no need for synchronization or anything
-        for(int i = 0; i < 256; i++){
-            if(cleared.get(i)){
-                var data = fog[i];
 
-                //swap buffers, flushing the data that was just drawn
-                Bits temp = data.read;
-                data.read = data.write;
-                data.write = temp;
+                for(var task : drawTasks){
+                    task.join();
+                }
+                drawTasks.clear();
+            }else{
+                for(int i = 0; i < drawTeams.size; i += 3){
+                    var data = fog[drawTeams.items[i]];
+                    if(data != null){
+                        data.draw(drawEvents, drawIds, drawTeams.items[i + 1], drawTeams.items[i + 2]);
+                    }
+                }
             }
         }
     }
@@ -513,13 +542,29 @@ public final class FogControl implements CustomChunk{
     }
 
     static void circle(Bits arr, int x, int y, int radius){
+        int[] spans = spans(radius);
+        for(int dy = -radius; dy <= radius; dy++){
+            int span = spans[dy + radius];
+            hline(arr, x - span, x + span, y + dy);
+        }
+    }
+
+    /**
+     * @return the half width of each row of a circle with the specified radius, from the bottom row to the top.
+     * Cached, as there are only a few different radii.
+     */
+    static synchronized int[] spans(int radius){
+        int[] spans = spanCache.get(radius);
+        if(spans != null) return spans;
+
+        spans = new int[radius * 2 + 1];
+
+        //midpoint circle; every row gets the widest line drawn on it
         int f = 1 - radius;
         int ddFx = 1, ddFy = -2 * radius;
         int px = 0, py = radius;
 
-        hline(arr, x, x, y + radius);
-        hline(arr, x, x, y - radius);
-        hline(arr, x - radius, x + radius, y);
+        spans[radius] = radius;
 
         while(px < py){
             if(f >= 0){
@@ -530,11 +575,14 @@ public final class FogControl implements CustomChunk{
             px++;
             ddFx += 2;
             f += ddFx;
-            hline(arr, x - px, x + px, y + py);
-            hline(arr, x - px, x + px, y - py);
-            hline(arr, x - py, x + py, y + px);
-            hline(arr, x - py, x + py, y - px);
+            spans[radius + py] = Math.max(spans[radius + py], px);
+            spans[radius - py] = Math.max(spans[radius - py], px);
+            spans[radius + px] = Math.max(spans[radius + px], py);
+            spans[radius - px] = Math.max(spans[radius - px], py);
         }
+
+        spanCache.put(radius, spans);
+        return spans;
     }
 
     static void hline(Bits arr, int x1, int x2, int y){
@@ -563,6 +611,13 @@ public final class FogControl implements CustomChunk{
         volatile Bits read, write;
         /** static map exploration fog*/
         final Bits staticData;
+        /** amount of dynamic sources that cover each tile; only accessed while drawing */
+        final short[] coverage;
+
+        /** entity ID -> index of its event in {@link #lastEvents} */
+        IntIntMap lastIndex = new IntIntMap(), nextIndex = new IntIntMap();
+        /** events that were drawn in the last update, or -1 for sources that were already handled in the current update */
+        LongSeq lastEvents = new LongSeq(), nextEvents = new LongSeq();
 
         /** last dynamic update timestamp. */
         long lastDynamicMs = 0;
@@ -575,6 +630,79 @@ public final class FogControl implements CustomChunk{
             read = new Bits(len);
             write = new Bits(len);
             staticData = new Bits(len);
+            coverage = new short[len];
+        }
+
+        /** Applies the difference between the last drawn events of this team and the specified ones, then publishes the result. */
+        void draw(LongSeq events, IntSeq ids, int from, int to){
+            nextIndex.clear();
+            nextEvents.clear();
+
+            for(int i = from; i < to; i++){
+                long event = events.items[i];
+                int id = ids.items[i];
+                if(FogEvent.radius(event) <= 0) continue;
+
+                int index = lastIndex.get(id, -1);
+                if(index == -1){
+                    stamp(event, 1);
+                }else{
+                    long last = lastEvents.items[index];
+                    lastEvents.items[index] = -1;
+                    if(last != event){
+                        stamp(last, -1);
+                        stamp(event, 1);
+                    }
+                }
+
+                nextIndex.put(id, nextEvents.size);
+                nextEvents.add(event);
+            }
+
+            //sources that are gone
+            for(int i = 0; i < lastEvents.size; i++){
+                if(lastEvents.items[i] != -1){
+                    stamp(lastEvents.items[i], -1);
+                }
+            }
+
+            var tmpIndex = lastIndex;
+            lastIndex = nextIndex;
+            nextIndex = tmpIndex;
+
+            var tmpEvents = lastEvents;
+            lastEvents = nextEvents;
+            nextEvents = tmpEvents;
+
+            //swap buffers, flushing the data that was just drawn, then bring the new write buffer up to date
+            Bits temp = read;
+            read = write;
+            write = temp;
+            temp.clear();
+            temp.or(read);
+        }
+
+        /** Adds or removes the coverage of a source. */
+        void stamp(long event, int amount){
+            int x = FogEvent.x(event), y = FogEvent.y(event), radius = FogEvent.radius(event) + 1; //radius is always +1 to keep up with visuals
+            int[] spans = spans(radius);
+            short[] coverage = this.coverage;
+            Bits write = this.write;
+
+            for(int dy = -radius; dy <= radius; dy++){
+                int ty = y + dy;
+                if(ty < 0 || ty >= wh) continue;
+
+                int span = spans[dy + radius], x1 = Math.max(x - span, 0), x2 = Math.min(x + span, ww - 1), off = ty * ww;
+                for(int i = off + x1; i <= off + x2; i++){
+                    int value = coverage[i] += amount;
+                    if(value == 0){
+                        write.clear(i);
+                    }else if(value == 1 && amount > 0){
+                        write.set(i);
+                    }
+                }
+            }
         }
     }
 
@@ -9,6 +9,7 @@ import arc.util.*;
 import mindustry.*;
 import mindustry.ai.*;
 import mindustry.annotations.Annotations.*;
+import mindustry.entities.*;
 import mindustry.gen.*;
 import mindustry.type.*;
 import mindustry.world.*;
@@ -192,7 +193,7 @@ public class Teams{
                 data.lastCore = data.cores.first();
             }
             if(data.unitTree != null){
-                data.unitTree.clear();
+                data.unitTree.begin();
             }
 
             if(data.typeCounts != null){
@@ -209,7 +210,6 @@ public class Teams{
             }
         }
 
-        //TODO this is slow and dumb
         for(Unit unit : Groups.unit){
             if(unit.type == null) continue;
             TeamData data = unit.team.data();
@@ -234,6 +234,14 @@ public class Teams{
             count(unit);
         }
 
+        //units that were not inserted again are gone
+        for(Team team : Team.all){
+            TeamData data = team.data();
+            if(data.unitTree != null){
+                data.unitTree.finish();
+            }
+        }
+
         for(var player : Groups.player){
             player.team().data().players.add(player);
         }
@@ -291,8 +299,8 @@ public class Teams{
         public @Nullable QuadTree<Building> buildingTree;
         /** Turrets by range. Null if not active. */
         public @Nullable QuadTree<Building> turretTree;
-        /** Quadtree for units of this team. Do not access directly. */
-        public @Nullable QuadTree<Unit> unitTree;
+        /** Spatial index for units of this team. Do not access directly. */
+        public @Nullable UnitIndex unitTree;
         /** Current unit cap. Do not modify externally. */
         public int unitCap;
         /** Total unit count. */
@@ -412,7 +420,7 @@ public class Teams{
         }
 
         public QuadTree<Unit> tree(){
-            if(unitTree == null) unitTree = new QuadTree<>(Vars.world.getQuadBounds(new Rect()));
+            if(unitTree == null) unitTree = new UnitIndex(Vars.world.getQuadBounds(new Rect()));
             return unitTree;
         }
 
@@ -2,16 +2,19 @@ package mindustry.io;
 
 import arc.*;
 import arc.files.*;
+import arc.func.*;
 import arc.struct.*;
 import arc.util.*;
 import arc.util.io.*;
 import mindustry.*;
 import mindustry.game.EventType.*;
+import mindustry.io.SaveFileReader.*;
 import mindustry.io.versions.*;
 import mindustry.world.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.*;
 
 import static mindustry.Vars.*;
@@ -20,7 +23,12 @@ public class SaveIO{
     /** Save format header. */
     public static final byte[] header = {'M', 'S', 'A', 'V'};
     public static final IntMap<SaveVersion> versions = new IntMap<>();
-    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7(), new Save8());
+    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7(), new Save8(), new Save9());
+
+    /** Compresses and writes saves from {@link #saveAsync(Fi, Cons)} one after another. */
+    private static final ExecutorService saveExecutor = Threads.executor("Save Writer", 1);
+    /** Maximum time to wait for pending saves when the application exits, in seconds. */
+    private static final int saveExitTimeout = 60;
 
     static{
         for(SaveVersion version : versionArray){
@@ -47,12 +55,95 @@ public class SaveIO{
         }
     }
 
+    /**
+     * Captures the world into memory on this thread, then compresses and writes it to the file on a background thread.
+     * The old file is kept as a backup while writing, like in {@link #save(Fi)}.
+     * @param done called on the main thread once the file is written, with the error if writing failed.
+     * @return a future that completes once the file is written.
+     */
+    public static Future<?> saveAsync(Fi file, @Nullable Cons<Throwable> done){
+        IORunner<DataOutput> data;
+        try{
+            data = capture(null);
+        }catch(Throwable e){
+            if(done != null) done.get(e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Runnable writer = () -> {
+            Throwable error = null;
+            boolean exists = file.exists();
+            if(exists) file.moveTo(backupFileFor(file));
+            try(DataOutputStream out = new DataOutputStream(file.write(false, bufferSize))){
+                data.accept(out);
+            }catch(Throwable e){
+                if(exists) backupFileFor(file).moveTo(file);
+                error = e;
+            }
+
+            if(done != null){
+                Throwable result = error;
+                Core.app.post(() -> done.get(result));
+            }else if(error != null){
+                Log.err(error);
+            }
+        };
+
+        //the application is exiting, so there is no thread left to write on
+        if(saveExecutor.isShutdown()){
+            writer.run();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return saveExecutor.submit(writer);
+    }
+
+    /**
+     * Waits until all saves from {@link #saveAsync(Fi, Cons)} are written, and stops the save thread. Called when the application exits,
+     * as the save thread is a daemon thread that would otherwise be stopped in the middle of writing a file.
+     * Saves that are started afterwards are written on the calling thread.
+     */
+    public static void finishSaves(){
+        saveExecutor.shutdown();
+        try{
+            if(!saveExecutor.awaitTermination(saveExitTimeout, TimeUnit.SECONDS)){
+                Log.warn("Saves were not written after @ seconds.", saveExitTimeout);
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static DataInputStream getStream(Fi file){
-        return new DataInputStream(new InflaterInputStream(file.read(bufferSize)));
+        try{
+            return new DataInputStream(readSave(file.read(bufferSize)));
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
     }
 
     public static DataInputStream getBackupStream(Fi file){
-        return new DataInputStream(new InflaterInputStream(backupFileFor(file).read(bufferSize)));
+        return getStream(backupFileFor(file));
+    }
+
+    /**
+     * Wraps the stream of a save or map file for reading. Files since version 9 are written without an outer deflate stream,
+     * as their regions are compressed separately; older files are deflated as a whole. The format is detected from the header.
+     */
+    public static InputStream readSave(InputStream input) throws IOException{
+        InputStream stream = input.markSupported() ? input : new BufferedInputStream(input, bufferSize);
+        byte[] bytes = new byte[header.length];
+
+        stream.mark(header.length);
+        int read = 0;
+        while(read < bytes.length){
+            int result = stream.read(bytes, read, bytes.length - read);
+            if(result < 0) break;
+            read += result;
+        }
+        stream.reset();
+
+        return Arrays.equals(bytes, header) ? stream : new InflaterInputStream(stream);
     }
 
     public static boolean isSaveValid(Fi file){
@@ -60,7 +151,7 @@ public class SaveIO{
     }
 
     private static boolean isSaveFileValid(Fi file){
-        try(DataInputStream stream = new DataInputStream(new InflaterInputStream(file.read(bufferSize)))){
+        try(DataInputStream stream = getStream(file)){
             getMeta(stream);
             return true;
         }catch(Throwable e){
@@ -112,7 +203,8 @@ public class SaveIO{
     }
 
     public static void write(Fi file, StringMap tags){
-        write(new FastDeflaterOutputStream(file.write(false, bufferSize)), tags);
+        //the current version compresses its regions, so the file itself is not deflated
+        write(file.write(false, bufferSize), tags);
     }
 
     public static void write(Fi file){
@@ -136,6 +228,22 @@ public class SaveIO{
         }
     }
 
+    /**
+     * Serializes the world into memory on this thread, like {@link #write(OutputStream, StringMap)}.
+     * @return a writer for the save file, which compresses the save and can be called on another thread.
+     */
+    public static IORunner<DataOutput> capture(@Nullable StringMap tags) throws IOException{
+        Events.fire(new SaveWriteEvent());
+        SaveVersion ver = getVersion();
+        IORunner<DataOutput> data = ver.capture(tags == null ? new StringMap() : tags);
+
+        return stream -> {
+            stream.write(header);
+            stream.writeInt(ver.version);
+            data.accept(stream);
+        };
+    }
+
     public static void load(String saveName) throws SaveException{
         load(saveDirectory.child(saveName + ".msav"));
     }
@@ -147,21 +255,21 @@ public class SaveIO{
     public static void load(Fi file, WorldContext context) throws SaveException{
         try{
             //try and load; if any exception at all occurs
-            load(new InflaterInputStream(file.read(bufferSize)), context);
+            load(file.read(bufferSize), context);
         }catch(SaveException e){
             Log.err(e);
             Fi backup = file.sibling(file.name() + "-backup." + file.extension());
             if(backup.exists()){
-                load(new InflaterInputStream(backup.read(bufferSize)), context);
+                load(backup.read(bufferSize), context);
             }else{
                 throw new SaveException(e.getCause());
             }
         }
     }
 
-    /** Loads from a deflated (!) input stream. */
+    /** Loads from the input stream of a save file, which is inflated if needed. See {@link #readSave(InputStream)}. */
     public static void load(InputStream is, WorldContext context) throws SaveException{
-        try(CounterInputStream counter = new CounterInputStream(is); DataInputStream stream = new DataInputStream(counter)){
+        try(CounterInputStream counter = new CounterInputStream(readSave(is)); DataInputStream stream = new DataInputStream(counter)){
             logic.reset();
             readHeader(stream);
             int version = stream.readInt();
@@ -73,7 +73,7 @@ public abstract class SaveVersion extends SaveFileReader{
         region("content", stream, counter, this::readContentHeader);
 
         try{
-            region("map", stream, counter, in -> readMap(in, context));
+            region("map", stream, counter, in -> readMapRegion(in, context));
             region("entities", stream, counter, this::readEntities);
             if(version >= 8) region("markers", stream, counter, this::readMarkers);
             region("custom", stream, counter, this::readCustomChunks);
@@ -82,6 +82,16 @@ public abstract class SaveVersion extends SaveFileReader{
         }
     }
 
+    /**
+     * Serializes the world into memory, and returns a writer that writes it to a stream later, possibly on another thread.
+     * Versions that compress their regions leave the compression to the writer.
+     */
+    public IORunner<DataOutput> capture(StringMap extraTags) throws IOException{
+        ReusableByteOutStream bytes = new ReusableByteOutStream(1024 * 64);
+        write(new DataOutputStream(bytes), extraTags);
+        return out -> out.write(bytes.getBytes(), 0, bytes.size());
+    }
+
     public void write(DataOutputStream stream, StringMap extraTags) throws IOException{
         region("meta", stream, out -> writeMeta(out, extraTags));
         region("content", stream, this::writeContentHeader);
@@ -202,19 +212,29 @@ public abstract class SaveVersion extends SaveFileReader{
         )) : worldmap;
     }
 
+    /** Reads the map region of a save file. By default, this is the same as {@link #readMap(DataInput, WorldContext)}. */
+    public void readMapRegion(DataInput stream, WorldContext context) throws IOException{
+        readMap(stream, context);
+    }
+
     public void writeMap(DataOutput stream) throws IOException{
         //write world size
         stream.writeShort(world.width());
         stream.writeShort(world.height());
 
-        //floor + overlay
-        for(int i = 0; i < world.width() * world.height(); i++){
+        writeFloors(stream, 0, world.width() * world.height());
+        writeBlocks(stream, 0, world.width() * world.height());
+    }
+
+    /** Writes floors and overlays of the tiles from start (inclusive) to end (exclusive), by tile index. */
+    public void writeFloors(DataOutput stream, int start, int end) throws IOException{
+        for(int i = start; i < end; i++){
             Tile tile = world.rawTile(i % world.width(), i / world.width());
             stream.writeShort(tile.floorID());
             stream.writeShort(tile.overlayID());
             int consecutives = 0;
 
-            for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
+            for(int j = i + 1; j < end && consecutives < 255; j++){
                 Tile nextTile = world.rawTile(j % world.width(), j / world.width());
 
                 if(nextTile.floorID() != tile.floorID() || nextTile.overlayID() != tile.overlayID()){
@@ -227,9 +247,11 @@ public abstract class SaveVersion extends SaveFileReader{
             stream.writeByte(consecutives);
             i += consecutives;
         }
+    }
 
-        //blocks
-        for(int i = 0; i < world.width() * world.height(); i++){
+    /** Writes blocks and buildings of the tiles from start (inclusive) to end (exclusive), by tile index. */
+    public void writeBlocks(DataOutput stream, int start, int end) throws IOException{
+        for(int i = start; i < end; i++){
             Tile tile = world.rawTile(i % world.width(), i / world.width());
             stream.writeShort(tile.blockID());
 
@@ -257,7 +279,7 @@ public abstract class SaveVersion extends SaveFileReader{
                 //write consecutive non-entity blocks
                 int consecutives = 0;
 
-                for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
+                for(int j = i + 1; j < end && consecutives < 255; j++){
                     Tile nextTile = world.rawTile(j % world.width(), j / world.width());
 
                     if(nextTile.blockID() != tile.blockID()){
@@ -285,75 +307,84 @@ public abstract class SaveVersion extends SaveFileReader{
             context.resize(width, height);
 
             //read floor and create tiles first
-            for(int i = 0; i < width * height; i++){
-                int x = i % width, y = i / width;
-                short floorid = stream.readShort();
-                short oreid = stream.readShort();
-                int consecutives = stream.readUnsignedByte();
-                if(content.block(floorid) == Blocks.air) floorid = Blocks.stone.id;
+            readFloors(stream, context, width, 0, width * height);
+            //read blocks
+            readBlocks(stream, context, 0, width * height);
+        }finally{
+            if(!generating) context.end();
+        }
+    }
 
-                context.create(x, y, floorid, oreid, (short)0);
+    /** Reads floors and overlays of the tiles from start (inclusive) to end (exclusive), creating the tiles. */
+    public void readFloors(DataInput stream, WorldContext context, int width, int start, int end) throws IOException{
+        for(int i = start; i < end; i++){
+            int x = i % width, y = i / width;
+            short floorid = stream.readShort();
+            short oreid = stream.readShort();
+            int consecutives = stream.readUnsignedByte();
+            if(content.block(floorid) == Blocks.air) floorid = Blocks.stone.id;
 
-                for(int j = i + 1; j < i + 1 + consecutives; j++){
-                    int newx = j % width, newy = j / width;
-                    context.create(newx, newy, floorid, oreid, (short)0);
-                }
+            context.create(x, y, floorid, oreid, (short)0);
 
-                i += consecutives;
+            for(int j = i + 1; j < i + 1 + consecutives; j++){
+                int newx = j % width, newy = j / width;
+                context.create(newx, newy, floorid, oreid, (short)0);
             }
 
-            //read blocks
-            for(int i = 0; i < width * height; i++){
-                Block block = content.block(stream.readShort());
-                Tile tile = context.tile(i);
-                if(block == null) block = Blocks.air;
-                boolean isCenter = true;
-                byte packedCheck = stream.readByte();
-                boolean hadEntity = (packedCheck & 1) != 0;
-                boolean hadData = (packedCheck & 2) != 0;
-
-                if(hadEntity){
-                    isCenter = stream.readBoolean();
-                }
+            i += consecutives;
+        }
+    }
 
-                //set block only if this is the center; otherwise, it's handled elsewhere
-                if(isCenter){
-                    tile.setBlock(block);
-                }
+    /** Reads blocks and buildings of the tiles from start (inclusive) to end (exclusive). Tiles must already be created. */
+    public void readBlocks(DataInput stream, WorldContext context, int start, int end) throws IOException{
+        for(int i = start; i < end; i++){
+            Block block = content.block(stream.readShort());
+            Tile tile = context.tile(i);
+            if(block == null) block = Blocks.air;
+            boolean isCenter = true;
+            byte packedCheck = stream.readByte();
+            boolean hadEntity = (packedCheck & 1) != 0;
+            boolean hadData = (packedCheck & 2) != 0;
+
+            if(hadEntity){
+                isCenter = stream.readBoolean();
+            }
 
-                if(hadEntity){
-                    if(isCenter){ //only read entity for center blocks
-                        if(block.hasBuilding()){
-                            try{
-                                readChunk(stream, true, in -> {
-                                    byte revision = in.readByte();
-                                    tile.build.readAll(Reads.get(in), revision);
-                                });
-                            }catch(Throwable e){
-                                throw new IOException("Failed to read tile entity of block: " + block, e);
-                            }
-                        }else{
-                            //skip the entity region, as the entity and its IO code are now gone
-                            skipChunk(stream, true);
-                        }
+            //set block only if this is the center; otherwise, it's handled elsewhere
+            if(isCenter){
+                tile.setBlock(block);
+            }
 
-                        context.onReadBuilding();
+            if(hadEntity){
+                if(isCenter){ //only read entity for center blocks
+                    if(block.hasBuilding()){
+                        try{
+                            readChunk(stream, true, in -> {
+                                byte revision = in.readByte();
+                                tile.build.readAll(Reads.get(in), revision);
+                            });
+                        }catch(Throwable e){
+                            throw new IOException("Failed to read tile entity of block: " + block, e);
+                        }
+                    }else{
+                        //skip the entity region, as the entity and its IO code are now gone
+                        skipChunk(stream, true);
                     }
-                }else if(hadData){
-                    tile.setBlock(block);
-                    tile.data = stream.readByte();
-                }else{
-                    int consecutives = stream.readUnsignedByte();
 
-                    for(int j = i + 1; j < i + 1 + consecutives; j++){
-                        context.tile(j).setBlock(block);
-                    }
+                    context.onReadBuilding();
+                }
+            }else if(hadData){
+                tile.setBlock(block);
+                tile.data = stream.readByte();
+            }else{
+                int consecutives = stream.readUnsignedByte();
 
-                    i += consecutives;
+                for(int j = i + 1; j < i + 1 + consecutives; j++){
+                    context.tile(j).setBlock(block);
                 }
+
+                i += consecutives;
             }
-        }finally{
-            if(!generating) context.end();
         }
     }
 
@@ -380,15 +411,19 @@ public abstract class SaveVersion extends SaveFileReader{
         for(Entityc entity : Groups.all){
             if(!entity.serialize()) continue;
 
-            writeChunk(stream, true, out -> {
-                out.writeByte(entity.classId());
-                out.writeInt(entity.id());
-                entity.beforeWrite();
-                entity.write(Writes.get(out));
-            });
+            writeWorldEntity(stream, entity);
         }
     }
 
+    public void writeWorldEntity(DataOutput stream, Entityc entity) throws IOException{
+        writeChunk(stream, true, out -> {
+            out.writeByte(entity.classId());
+            out.writeInt(entity.id());
+            entity.beforeWrite();
+            entity.write(Writes.get(out));
+        });
+    }
+
     public void writeEntityMapping(DataOutput stream) throws IOException{
         stream.writeShort(EntityMapping.customIdMap.size);
         for(var entry : EntityMapping.customIdMap.entries()){
@@ -435,10 +470,16 @@ public abstract class SaveVersion extends SaveFileReader{
     }
 
     public void readWorldEntities(DataInput stream) throws IOException{
+        readWorldEntities(stream, stream.readInt());
+
+        Groups.all.each(Entityc::afterReadAll);
+    }
+
+    /** Reads and adds entities written by {@link #writeWorldEntity(DataOutput, Entityc)}, without calling {@link Entityc#afterReadAll()}. */
+    public void readWorldEntities(DataInput stream, int amount) throws IOException{
         //entityMapping is null in older save versions, so use the default
         var mapping = this.entityMapping == null ? EntityMapping.idMap : this.entityMapping;
 
-        int amount = stream.readInt();
         for(int j = 0; j < amount; j++){
             readChunk(stream, true, in -> {
                 int typeid = in.readUnsignedByte();
@@ -456,8 +497,6 @@ public abstract class SaveVersion extends SaveFileReader{
                 entity.add();
             });
         }
-
-        Groups.all.each(Entityc::afterReadAll);
     }
 
     public void readEntityMapping(DataInput stream) throws IOException{
@@ -0,0 +1,348 @@
+package mindustry.io.versions;
+
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.gen.*;
+import mindustry.io.*;
+import mindustry.world.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Stores the map, entity, marker and custom regions as blocks that are compressed separately, each preceded by an index with the size of every block.
+ * The map is split into bands of rows, entities into groups, and every custom chunk is its own block. Files of this version are not deflated as a whole.
+ * <p>
+ * Writing first serializes the world into memory, then compresses the blocks; {@link SaveIO#saveAsync} does the second step on the save thread.
+ * Reading decompresses all blocks of a region on worker threads, and tools can skip blocks through the index without decompressing them.
+ */
+public class Save9 extends SaveVersion{
+    /** rows of tiles in each map band */
+    public static final int bandRows = 32;
+    /** maximum amount of entities in each block of the entity region */
+    public static final int entityBlockSize = 256;
+
+    public Save9(){
+        super(9);
+    }
+
+    @Override
+    public void write(DataOutputStream stream, StringMap extraTags) throws IOException{
+        captureRegions(extraTags).write(stream, true);
+    }
+
+    @Override
+    public IORunner<DataOutput> capture(StringMap extraTags) throws IOException{
+        CapturedSave save = captureRegions(extraTags);
+        //this runs on the save thread, which should not compete with the main executor
+        return stream -> save.write(stream, false);
+    }
+
+    @Override
+    public void read(DataInputStream stream, CounterInputStream counter, WorldContext context) throws IOException{
+        region("meta", stream, counter, in -> readMeta(in, context));
+        region("content", stream, counter, this::readContentHeader);
+
+        try{
+            region("map", stream, counter, in -> readMapRegion(in, context));
+            region("entities", stream, counter, this::readEntityRegion);
+            region("markers", stream, counter, in -> readMarkers(readCompressed(in)[0]));
+            region("custom", stream, counter, this::readCustomRegion);
+        }finally{
+            content.setTemporaryMapper(null);
+        }
+    }
+
+    /** Serializes every region into memory without compressing it. Must be called on the main thread. */
+    public CapturedSave captureRegions(StringMap extraTags) throws IOException{
+        CapturedSave save = new CapturedSave();
+        save.regions.addAll(
+            new CapturedRegion("meta", bytes(out -> writeMeta(out, extraTags)), null),
+            new CapturedRegion("content", bytes(this::writeContentHeader), null),
+            captureMap(),
+            captureEntities(),
+            new CapturedRegion("markers", new byte[0], Seq.with(bytes(this::writeMarkers))),
+            captureCustomChunks()
+        );
+        return save;
+    }
+
+    @Override
+    public void readMapRegion(DataInput stream, WorldContext context) throws IOException{
+        int width = stream.readUnsignedShort();
+        int height = stream.readUnsignedShort();
+        int rows = stream.readUnsignedShort();
+        DataInputStream[] bands = readCompressed(stream);
+
+        boolean generating = context.isGenerating();
+
+        if(!generating) context.begin();
+        try{
+            context.resize(width, height);
+
+            //all floors are read first, as blocks of one band can cover tiles of the next one
+            for(int i = 0; i < bands.length; i++){
+                readFloors(bands[i], context, width, bandStart(i, rows, width, height), bandStart(i + 1, rows, width, height));
+            }
+
+            for(int i = 0; i < bands.length; i++){
+                readBlocks(bands[i], context, bandStart(i, rows, width, height), bandStart(i + 1, rows, width, height));
+            }
+        }finally{
+            if(!generating) context.end();
+        }
+    }
+
+    CapturedRegion captureMap() throws IOException{
+        int width = world.width(), height = world.height();
+        int bands = Math.max((height + bandRows - 1) / bandRows, 1);
+
+        Seq<byte[]> blocks = new Seq<>(byte[].class);
+        for(int i = 0; i < bands; i++){
+            int start = bandStart(i, width, height), end = bandStart(i + 1, width, height);
+            blocks.add(bytes(width * bandRows * 4, out -> {
+                writeFloors(out, start, end);
+                writeBlocks(out, start, end);
+            }));
+        }
+
+        return new CapturedRegion("map", bytes(out -> {
+            out.writeShort(width);
+            out.writeShort(height);
+            out.writeShort(bandRows);
+        }), blocks);
+    }
+
+    /** The first block holds the entity mapping and team plans, every following block up to {@link #entityBlockSize} entities. */
+    CapturedRegion captureEntities() throws IOException{
+        Seq<byte[]> blocks = new Seq<>(byte[].class);
+        blocks.add(bytes(out -> {
+            writeEntityMapping(out);
+            writeTeamBlocks(out);
+        }));
+
+        Seq<Entityc> entities = new Seq<>();
+        for(Entityc entity : Groups.all){
+            if(entity.serialize()) entities.add(entity);
+        }
+
+        for(int i = 0; i < entities.size; i += entityBlockSize){
+            int from = i, to = Math.min(i + entityBlockSize, entities.size);
+            blocks.add(bytes(out -> {
+                out.writeInt(to - from);
+                for(int j = from; j < to; j++){
+                    writeWorldEntity(out, entities.get(j));
+                }
+            }));
+        }
+
+        return new CapturedRegion("entities", new byte[0], blocks);
+    }
+
+    CapturedRegion captureCustomChunks() throws IOException{
+        Seq<byte[]> blocks = new Seq<>(byte[].class);
+        for(String name : customChunks.orderedKeys()){
+            var chunk = customChunks.get(name);
+            if(!chunk.shouldWrite()) continue;
+
+            blocks.add(bytes(out -> {
+                out.writeUTF(name);
+                writeChunk(out, false, chunk::write);
+            }));
+        }
+
+        return new CapturedRegion("custom", new byte[0], blocks);
+    }
+
+    void readEntityRegion(DataInput stream) throws IOException{
+        DataInputStream[] blocks = readCompressed(stream);
+
+        readEntityMapping(blocks[0]);
+        readTeamBlocks(blocks[0]);
+        for(int i = 1; i < blocks.length; i++){
+            readWorldEntities(blocks[i], blocks[i].readInt());
+        }
+
+        Groups.all.each(Entityc::afterReadAll);
+    }
+
+    void readCustomRegion(DataInput stream) throws IOException{
+        for(DataInputStream block : readCompressed(stream)){
+            var chunk = customChunks.get(block.readUTF());
+            if(chunk != null){
+                readChunk(block, false, chunk::read);
+            }
+        }
+    }
+
+    /** Reads the index and blocks that follow the header of a compressed region, and decompresses them on the main executor. */
+    @SuppressWarnings("unchecked")
+    public DataInputStream[] readCompressed(DataInput stream) throws IOException{
+        int amount = stream.readInt();
+
+        int[] sizes = new int[amount], lengths = new int[amount];
+        for(int i = 0; i < amount; i++){
+            sizes[i] = stream.readInt();
+            lengths[i] = stream.readInt();
+        }
+
+        Future<byte[]>[] inflated = new Future[amount];
+        for(int i = 0; i < amount; i++){
+            byte[] data = new byte[lengths[i]];
+            stream.readFully(data);
+            int size = sizes[i];
+            inflated[i] = mainExecutor.submit(() -> inflate(data, size));
+        }
+
+        DataInputStream[] result = new DataInputStream[amount];
+        for(int i = 0; i < amount; i++){
+            result[i] = new DataInputStream(new ByteArrayInputStream(get(inflated[i])));
+        }
+        return result;
+    }
+
+    /** A save that was serialized into memory, with blocks that are not compressed yet. */
+    public static class CapturedSave{
+        final Seq<CapturedRegion> regions = new Seq<>();
+
+        /**
+         * Compresses all blocks and writes every region to the stream. Does not access the world, so it can be called on any thread.
+         * @param parallel whether to compress on the main executor instead of the calling thread.
+         */
+        public void write(DataOutput stream, boolean parallel) throws IOException{
+            for(CapturedRegion region : regions){
+                region.compress(parallel);
+            }
+
+            for(CapturedRegion region : regions){
+                try{
+                    region.write(stream);
+                }catch(Throwable e){
+                    throw new IOException("Error writing region \"" + region.name + "\".", e);
+                }
+            }
+        }
+    }
+
+    static class CapturedRegion{
+        final String name;
+        /** uncompressed data at the start of the region */
+        final byte[] header;
+        /** data that is compressed separately after the header and index, or null if the region is not compressed */
+        final @Nullable Seq<byte[]> blocks;
+        final Seq<Future<byte[]>> compressed = new Seq<>();
+
+        CapturedRegion(String name, byte[] header, @Nullable Seq<byte[]> blocks){
+            this.name = name;
+            this.header = header;
+            this.blocks = blocks;
+        }
+
+        void compress(boolean parallel){
+            if(blocks == null) return;
+
+            compressed.clear();
+            for(byte[] block : blocks){
+                compressed.add(parallel ? mainExecutor.submit(() -> deflate(block)) : CompletableFuture.completedFuture(deflate(block)));
+            }
+        }
+
+        /** Writes the region with its length, as read by {@link SaveFileReader#region(String, DataInput, CounterInputStream, IORunner)}. */
+        void write(DataOutput stream) throws IOException{
+            if(blocks == null){
+                stream.writeInt(header.length);
+                stream.write(header);
+                return;
+            }
+
+            byte[][] data = new byte[blocks.size][];
+            int length = header.length + 4 + blocks.size * 8;
+            for(int i = 0; i < blocks.size; i++){
+                data[i] = get(compressed.get(i));
+                length += data[i].length;
+            }
+
+            stream.writeInt(length);
+            stream.write(header);
+
+            //index of uncompressed and compressed sizes, followed by the data of every block
+            stream.writeInt(blocks.size);
+            for(int i = 0; i < blocks.size; i++){
+                stream.writeInt(blocks.get(i).length);
+                stream.writeInt(data[i].length);
+            }
+
+            for(byte[] block : data){
+                stream.write(block);
+            }
+        }
+    }
+
+    static byte[] bytes(IORunner<DataOutput> runner) throws IOException{
+        return bytes(256, runner);
+    }
+
+    static byte[] bytes(int size, IORunner<DataOutput> runner) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        runner.accept(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static int bandStart(int band, int width, int height){
+        return bandStart(band, bandRows, width, height);
+    }
+
+    static int bandStart(int band, int rows, int width, int height){
+        return Math.min(band * rows, height) * width;
+    }
+
+    static byte[] deflate(byte[] bytes){
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(bytes.length / 4, 64));
+        byte[] buffer = new byte[8192];
+        while(!deflater.finished()){
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    static byte[] inflate(byte[] bytes, int size) throws IOException{
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+
+        byte[] out = new byte[size];
+        int offset = 0;
+        try{
+            while(offset < size){
+                int read = inflater.inflate(out, offset, size - offset);
+                if(read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())){
+                    throw new IOException("Compressed block is too short. Expected: " + size + "; Actual: " + offset);
+                }
+                offset += read;
+            }
+        }catch(DataFormatException e){
+            throw new IOException(e);
+        }finally{
+            inflater.end();
+        }
+        return out;
+    }
+
+    static byte[] get(Future<byte[]> future) throws IOException{
+        try{
+            return future.get();
+        }catch(ExecutionException e){
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }catch(InterruptedException e){
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package mindustry.logic;
+
+import mindustry.logic.LExecutor.*;
+
+/**
+ * Specializes assembled logic instructions for {@link LExecutor#run(int)}.
+ * Arithmetic operations and numeric jumps are replaced with instructions that compute their result directly,
+ * instead of going through the {@link LogicOp} and {@link ConditionOp} lambdas.
+ * Any other instruction is kept as-is, so the compiled program behaves exactly like the interpreted one.
+ */
+public class LCompiler{
+    /** Whether processors compile their instructions when they are loaded. */
+    public static boolean enabled = true;
+
+    /** @return a specialized copy of the instructions, with the same length and addresses. */
+    public static LInstruction[] compile(LInstruction[] instructions){
+        LInstruction[] out = new LInstruction[instructions.length];
+        for(int i = 0; i < instructions.length; i++){
+            out[i] = compile(instructions[i]);
+        }
+        return out;
+    }
+
+    static LInstruction compile(LInstruction inst){
+        if(inst instanceof OpI op && op.op != LogicOp.strictEqual){
+            if(op.op.unary){
+                return new NumOp1I(op.op, op.a, op.dest);
+            }else if(op.op.objFunction2 == null){
+                return new NumOp2I(op.op, op.a, op.b, op.dest);
+            }
+        }else if(inst instanceof JumpI jump && jump.address != -1){
+            if(jump.op == ConditionOp.always){
+                return new GotoI(jump.address);
+            }else if(jump.op.objFunction == null && jump.op != ConditionOp.strictEqual){
+                return new NumJumpI(jump.op, jump.value, jump.compare, jump.address);
+            }
+        }
+        return inst;
+    }
+
+    /** Unary operation. Equivalent to an {@link OpI} with a unary operator. */
+    static class NumOp1I implements LInstruction{
+        final LogicOp op;
+        final LVar a, dest;
+
+        NumOp1I(LogicOp op, LVar a, LVar dest){
+            this.op = op;
+            this.a = a;
+            this.dest = dest;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            double x = a.num();
+            dest.setnum(switch(op){
+                case not -> ~(long)x;
+                case abs -> Math.abs(x);
+                case sign -> Math.signum(x);
+                case floor -> Math.floor(x);
+                case ceil -> Math.ceil(x);
+                case round -> Math.round(x);
+                case sqrt -> Math.sqrt(x);
+                default -> op.function1.get(x);
+            });
+        }
+    }
+
+    /** Binary operation without an object function. Equivalent to an {@link OpI} with the same operator. */
+    static class NumOp2I implements LInstruction{
+        final LogicOp op;
+        final LVar a, b, dest;
+
+        NumOp2I(LogicOp op, LVar a, LVar b, LVar dest){
+            this.op = op;
+            this.a = a;
+            this.b = b;
+            this.dest = dest;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            double x = a.num(), y = b.num();
+            dest.setnum(switch(op){
+                case add -> x + y;
+                case sub -> x - y;
+                case mul -> x * y;
+                case div -> x / y;
+                case idiv -> Math.floor(x / y);
+                case mod -> x % y;
+                case land -> x != 0 && y != 0 ? 1 : 0;
+                case lessThan -> x < y ? 1 : 0;
+                case lessThanEq -> x <= y ? 1 : 0;
+                case greaterThan -> x > y ? 1 : 0;
+                case greaterThanEq -> x >= y ? 1 : 0;
+                case shl -> (long)x << (long)y;
+                case shr -> (long)x >> (long)y;
+                case or -> (long)x | (long)y;
+                case and -> (long)x & (long)y;
+                case xor -> (long)x ^ (long)y;
+                case max -> Math.max(x, y);
+                case min -> Math.min(x, y);
+                default -> op.function2.get(x, y);
+            });
+        }
+    }
+
+    /** Jump with a condition that only compares numbers. Equivalent to a {@link JumpI} with the same condition. */
+    static class NumJumpI implements LInstruction{
+        final ConditionOp op;
+        final LVar value, compare;
+        final int address;
+
+        NumJumpI(ConditionOp op, LVar value, LVar compare, int address){
+            this.op = op;
+            this.value = value;
+            this.compare = compare;
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            double x = value.num(), y = compare.num();
+            boolean cmp = switch(op){
+                case lessThan -> x < y;
+                case lessThanEq -> x <= y;
+                case greaterThan -> x > y;
+                case greaterThanEq -> x >= y;
+                default -> op.function.get(x, y);
+            };
+
+            if(cmp){
+                exec.counter.numval = address;
+            }
+        }
+    }
+
+    /** Unconditional jump. */
+    static class GotoI implements LInstruction{
+        final int address;
+
+        GotoI(int address){
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            exec.counter.numval = address;
+        }
+    }
+}
@@ -43,6 +43,8 @@ public class LExecutor{
     maxTextBuffer = 400;
 
     public LInstruction[] instructions = {};
+    /** Instructions specialized by {@link LCompiler}, used by {@link #run(int)}. */
+    public LInstruction[] program = {};
     /** Non-constant variables used for network sync */
     public LVar[] vars = {};
 
@@ -50,6 +52,16 @@ public class LExecutor{
 
     public int[] binds;
     public boolean yield;
+    /**
+     * Whether this processor only uses its own variables and memory cells that it has linked, and may run on another thread.
+     * See {@link ParallelLogic}.
+     */
+    public boolean isolated;
+    /** Memory cells that are read or written by this processor, if it is isolated. */
+    public Building[] memoryTargets = {};
+    /** Time spent running and amount of instructions run, while the {@link LogicProfiler} is enabled. */
+    public long profileNanos, profileInstructions;
+    private int profileSample;
 
     public LongSeq graphicsBuffer = new LongSeq();
     public StringBuilder textBuffer = new StringBuilder();
@@ -93,6 +105,69 @@ public class LExecutor{
         }
     }
 
+    /**
+     * Runs up to the specified amount of instructions, stopping after an instruction that yields.
+     * Behaves like calling {@link #runOnce()} repeatedly, but uses the compiled program if there is one.
+     * @return the amount of instructions that were run
+     */
+    public int run(int amount){
+        LInstruction[] code = program.length == instructions.length ? program : instructions;
+        if(code.length == 0){
+            runOnce();
+            return 1;
+        }
+
+        if(LogicProfiler.enabled){
+            return runProfiled(amount, code);
+        }
+
+        int ran = 0;
+        while(ran < amount){
+            //reset to start
+            if(counter.numval >= code.length || counter.numval < 0){
+                counter.numval = 0;
+            }
+
+            counter.isobj = false;
+            code[(int)(counter.numval++)].run(this);
+            ran++;
+
+            if(yield) break;
+        }
+        return ran;
+    }
+
+    /** Same as {@link #run(int)}, but records the time spent, and samples the time of individual instructions. */
+    int runProfiled(int amount, LInstruction[] code){
+        long start = Time.nanos();
+
+        int ran = 0;
+        while(ran < amount){
+            if(counter.numval >= code.length || counter.numval < 0){
+                counter.numval = 0;
+            }
+
+            counter.isobj = false;
+            LInstruction inst = code[(int)(counter.numval++)];
+
+            if(++profileSample >= LogicProfiler.sampleInterval){
+                profileSample = 0;
+                long instStart = Time.nanos();
+                inst.run(this);
+                LogicProfiler.sample(inst, Time.timeSinceNanos(instStart));
+            }else{
+                inst.run(this);
+            }
+            ran++;
+
+            if(yield) break;
+        }
+
+        profileNanos += Time.timeSinceNanos(start);
+        profileInstructions += ran;
+        return ran;
+    }
+
     /** Loads with a specified assembler. Resets all variables. */
     public void load(LAssembler builder){
         nameMap = null;
@@ -102,12 +177,46 @@ public class LExecutor{
         }
 
         instructions = builder.instructions;
+        program = LCompiler.enabled ? LCompiler.compile(instructions) : instructions;
+        classify();
         counter = builder.getVar("@counter");
         unit = builder.getVar("@unit");
         thisv = builder.getVar("@this");
         ipt = builder.putConst("@ipt", build != null ? build.ipt : 0);
     }
 
+    /** Checks whether this processor is {@link #isolated}. */
+    void classify(){
+        Seq<Building> targets = new Seq<>(Building.class);
+        isolated = instructions.length > 0;
+
+        for(LInstruction inst : instructions){
+            if(inst instanceof ReadI read){
+                isolated = memoryTarget(read.target, targets);
+            }else if(inst instanceof WriteI write){
+                isolated = memoryTarget(write.target, targets);
+            }else if(inst instanceof OpI op){
+                //the random generator is shared between processors
+                isolated = op.op != LogicOp.rand;
+            }else{
+                isolated = inst instanceof SetI || inst instanceof JumpI || inst instanceof NoopI || inst instanceof EndI || inst instanceof WaitI || inst instanceof StopI;
+            }
+
+            if(!isolated) break;
+        }
+
+        memoryTargets = isolated ? targets.toArray() : new Building[0];
+    }
+
+    static boolean memoryTarget(LVar var, Seq<Building> targets){
+        //only links are allowed, as they can never refer to another building
+        if(var.constant && var.objval instanceof MemoryBuild mem){
+            targets.addUnique(mem);
+            return true;
+        }
+        return false;
+    }
+
     //region utility
 
 
@@ -676,6 +785,19 @@ public class LExecutor{
         static float bestValue = 0f;
         static Unit best = null;
 
+        //results of the radar queries made in the current update, shared between all processors
+        static final ObjectMap<RadarQuery, Unit> cache = new ObjectMap<>();
+        static final RadarQuery query = new RadarQuery();
+        static long cacheUpdateId = -1;
+
+        static{
+            //cached units must not outlive their world
+            Events.on(ResetEvent.class, e -> {
+                cache.clear();
+                cacheUpdateId = -1;
+            });
+        }
+
         public RadarI(RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort, LVar radar, LVar sortOrder, LVar output){
             this.target1 = target1;
             this.target2 = target2;
@@ -705,28 +827,7 @@ public class LExecutor{
                 //timers update on a fixed 30 tick interval
                 //units update on a special timer per controller instance
                 if((base instanceof Building && (timer.get(30f) || lastSourceBuild != base)) || (ai != null && ai.checkTargetTimer(this))){
-                    //if any of the targets involve enemies
-                    boolean enemies = target1 == RadarTarget.enemy || target2 == RadarTarget.enemy || target3 == RadarTarget.enemy;
-                    boolean allies = target1 == RadarTarget.ally || target2 == RadarTarget.ally || target3 == RadarTarget.ally;
-
-                    best = null;
-                    bestValue = 0;
-
-                    if(enemies){
-                        Seq<TeamData> data = state.teams.present;
-                        for(int i = 0; i < data.size; i++){
-                            if(data.items[i].team != r.team()){
-                                find(r, range, sortDir, data.items[i].team);
-                            }
-                        }
-                    }else if(!allies){
-                        Seq<TeamData> data = state.teams.present;
-                        for(int i = 0; i < data.size; i++){
-                            find(r, range, sortDir, data.items[i].team);
-                        }
-                    }else{
-                        find(r, range, sortDir, r.team());
-                    }
+                    search(r, range, sortDir);
 
                     if(ai != null){
                         ai.execCache.put(this, best);
@@ -748,6 +849,45 @@ public class LExecutor{
             }
         }
 
+        /** Finds the best target, or reuses the result of an identical query made by any processor in this update. */
+        void search(Ranged r, float range, int sortDir){
+            if(cacheUpdateId != state.updateId){
+                cacheUpdateId = state.updateId;
+                cache.clear();
+            }
+
+            query.set(r, range, sortDir, target1, target2, target3, sort);
+            if(cache.containsKey(query)){
+                best = cache.get(query);
+                if(best == null || best.isValid()) return;
+            }
+
+            //if any of the targets involve enemies
+            boolean enemies = target1 == RadarTarget.enemy || target2 == RadarTarget.enemy || target3 == RadarTarget.enemy;
+            boolean allies = target1 == RadarTarget.ally || target2 == RadarTarget.ally || target3 == RadarTarget.ally;
+
+            best = null;
+            bestValue = 0;
+
+            if(enemies){
+                Seq<TeamData> data = state.teams.present;
+                for(int i = 0; i < data.size; i++){
+                    if(data.items[i].team != r.team()){
+                        find(r, range, sortDir, data.items[i].team);
+                    }
+                }
+            }else if(!allies){
+                Seq<TeamData> data = state.teams.present;
+                for(int i = 0; i < data.size; i++){
+                    find(r, range, sortDir, data.items[i].team);
+                }
+            }else{
+                find(r, range, sortDir, r.team());
+            }
+
+            cache.put(query.copy(), best);
+        }
+
         void find(Ranged b, float range, int sortDir, Team team){
             Units.nearby(team, b.x(), b.y(), range, u -> {
                 if(!u.within(b, range) || !u.targetable(team) || b == u) return;
@@ -768,6 +908,66 @@ public class LExecutor{
         }
     }
 
+    /** Everything the result of a radar search depends on. */
+    static class RadarQuery{
+        float x, y, range;
+        int sortDir;
+        /** ID of the unit that searches, which is excluded from the results; -1 for buildings */
+        int source;
+        Team team;
+        RadarTarget target1, target2, target3;
+        RadarSort sort;
+
+        void set(Ranged r, float range, int sortDir, RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort){
+            this.x = r.x();
+            this.y = r.y();
+            this.range = range;
+            this.sortDir = sortDir;
+            this.source = r instanceof Unit u ? u.id : -1;
+            this.team = r.team();
+            this.target1 = target1;
+            this.target2 = target2;
+            this.target3 = target3;
+            this.sort = sort;
+        }
+
+        RadarQuery copy(){
+            RadarQuery out = new RadarQuery();
+            out.x = x;
+            out.y = y;
+            out.range = range;
+            out.sortDir = sortDir;
+            out.source = source;
+            out.team = team;
+            out.target1 = target1;
+            out.target2 = target2;
+            out.target3 = target3;
+            out.sort = sort;
+            return out;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof RadarQuery q && x == q.x && y == q.y && range == q.range && sortDir == q.sortDir && source == q.source &&
+                team == q.team && target1 == q.target1 && target2 == q.target2 && target3 == q.target3 && sort == q.sort;
+        }
+
+        @Override
+        public int hashCode(){
+            int result = Float.floatToIntBits(x);
+            result = 31 * result + Float.floatToIntBits(y);
+            result = 31 * result + Float.floatToIntBits(range);
+            result = 31 * result + sortDir;
+            result = 31 * result + source;
+            result = 31 * result + team.id;
+            result = 31 * result + target1.ordinal();
+            result = 31 * result + target2.ordinal();
+            result = 31 * result + target3.ordinal();
+            result = 31 * result + sort.ordinal();
+            return result;
+        }
+    }
+
     public static class SetI implements LInstruction{
         public LVar from, to;
 
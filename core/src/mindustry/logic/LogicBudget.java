@@ -0,0 +1,60 @@
+package mindustry.logic;
+
+import arc.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.EventType.*;
+import mindustry.net.Administration.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+
+/**
+ * Limits the total time processors may run each tick. Processors are queued instead of running in their update, and are then run
+ * in turn until the budget runs out. The next tick continues with the first processor that did not run, so that all processors
+ * get to run eventually; their instruction accumulators keep filling up in the meantime.
+ * Isolated processors that run in {@link ParallelLogic} count towards the same budget, and run before these ones.
+ */
+public class LogicBudget{
+    /** Time processors may run each tick, in nanoseconds. 0 if there is no limit. Set by Logic from {@link Config#logicBudget}, which is in microseconds. */
+    public static long budget;
+    /** Time already used by {@link ParallelLogic} in this tick, in nanoseconds. */
+    static long spent;
+
+    static final Seq<LogicBuild> queued = new Seq<>(LogicBuild.class);
+    /** index of the first processor to run next tick */
+    static int offset;
+
+    static{
+        //flushed by ParallelLogic, after isolated processors
+        Events.on(ResetEvent.class, e -> queued.clear());
+    }
+
+    public static boolean active(){
+        return budget > 0;
+    }
+
+    /** Queues a processor to run its instructions at the end of the update, if there is enough time left. */
+    public static void queue(LogicBuild build){
+        queued.add(build);
+    }
+
+    /** Runs queued processors until the budget runs out. */
+    public static void flush(){
+        long remaining = budget - spent;
+        spent = 0;
+        if(queued.isEmpty()) return;
+
+        long start = Time.nanos();
+        int size = queued.size, ran = 0;
+        if(offset >= size) offset = 0;
+
+        while(ran < size){
+            queued.items[(offset + ran) % size].runInstructions();
+            ran++;
+
+            if(Time.timeSinceNanos(start) > remaining) break;
+        }
+
+        offset = (offset + ran) % size;
+        queued.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package mindustry.logic;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.logic.LExecutor.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Measures the time spent by each processor, and samples the time spent per instruction type.
+ * Processor times are exact; one in every {@link #sampleInterval} instructions is timed individually.
+ */
+public class LogicProfiler{
+    public static final int sampleInterval = 16;
+
+    public static volatile boolean enabled = false;
+
+    static final ConcurrentHashMap<Class<?>, InstructionStats> instructions = new ConcurrentHashMap<>();
+    static long startTime = Time.nanos();
+
+    /** Records the time of a single sampled instruction. */
+    public static void sample(LInstruction inst, long nanos){
+        var stats = instructions.computeIfAbsent(inst.getClass(), c -> new InstructionStats());
+        stats.samples.incrementAndGet();
+        stats.nanos.addAndGet(nanos);
+    }
+
+    /** Clears all measurements. */
+    public static void reset(){
+        instructions.clear();
+        for(Building build : Groups.build){
+            if(build instanceof LogicBuild logic){
+                logic.executor.profileNanos = 0;
+                logic.executor.profileInstructions = 0;
+            }
+        }
+        startTime = Time.nanos();
+    }
+
+    /** @return a report of the most expensive processors and instruction types since the last reset. */
+    public static String report(int maxProcessors){
+        StringBuilder out = new StringBuilder();
+        double seconds = Math.max(Time.timeSinceNanos(startTime) / 1e9, 0.001);
+
+        Seq<LogicBuild> builds = new Seq<>();
+        long total = 0;
+        for(Building build : Groups.build){
+            if(build instanceof LogicBuild logic && logic.executor.profileInstructions > 0){
+                builds.add(logic);
+                total += logic.executor.profileNanos;
+            }
+        }
+        builds.sort(b -> -b.executor.profileNanos);
+
+        out.append(Strings.format("Logic: @ processors, @ ms/s\n", builds.size, Strings.fixed((float)(total / 1e6 / seconds), 2)));
+        out.append(String.format("%-28s %-10s %12s %10s %8s\n", "processor", "team", "instr/s", "ms/s", "%"));
+        for(int i = 0; i < Math.min(maxProcessors, builds.size); i++){
+            LogicBuild build = builds.get(i);
+            out.append(String.format("%-28s %-10s %12.0f %10.3f %7.1f%%\n",
+                build.block.name + " " + build.tileX() + "," + build.tileY(), build.team.name,
+                build.executor.profileInstructions / seconds, build.executor.profileNanos / 1e6 / seconds,
+                total == 0 ? 0 : build.executor.profileNanos * 100.0 / total));
+        }
+
+        out.append(String.format("\n%-28s %12s %12s %10s\n", "instruction", "~count/s", "~ms/s", "ns/op"));
+        Seq<Class<?>> types = new Seq<>();
+        instructions.forEach((type, stats) -> types.add(type));
+        types.sort(type -> -instructions.get(type).nanos.get());
+
+        for(Class<?> type : types){
+            var stats = instructions.get(type);
+            long samples = stats.samples.get(), nanos = stats.nanos.get();
+            out.append(String.format("%-28s %12.0f %12.3f %10.1f\n",
+                type.getSimpleName(),
+                samples * sampleInterval / seconds, nanos * sampleInterval / 1e6 / seconds, samples == 0 ? 0 : (double)nanos / samples));
+        }
+
+        return out.toString();
+    }
+
+    static class InstructionStats{
+        final AtomicLong samples = new AtomicLong(), nanos = new AtomicLong();
+    }
+}
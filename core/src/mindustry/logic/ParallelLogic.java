@@ -0,0 +1,154 @@
+package mindustry.logic;
+
+import arc.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs {@link LExecutor#isolated} processors on worker threads, after all buildings have updated.
+ * Such processors cannot observe each other unless they share a memory cell; processors that do are run one after another
+ * in update order on the main thread, so the results do not depend on the amount of threads.
+ * Processors that still run in their own update, such as ones that control blocks, see the memory cell writes of isolated processors one tick later.
+ * <p>
+ * When the {@link LogicBudget} is active, processors run in rounds of one batch per thread, and no round starts after the budget ran out.
+ * The next tick continues with the first processor that did not run, and the budgeted processors get the time that is left.
+ */
+public class ParallelLogic{
+    /** Whether isolated processors are queued instead of running in their update. Logic copies {@link Config#parallelLogic} into it at the start of each frame. */
+    public static boolean active;
+    /** Amount of processors that ran on worker threads and one after another in the last flush. */
+    public static int lastParallel, lastSequential;
+
+    /** minimum amount of processors per task */
+    static final int minBatch = 16;
+
+    static final Seq<LogicBuild> queued = new Seq<>(LogicBuild.class);
+    static final Seq<LogicBuild> parallel = new Seq<>(LogicBuild.class), sequential = new Seq<>(LogicBuild.class);
+    /** position of each processor in the order of this flush, counted from the offset */
+    static final IntSeq parallelOrder = new IntSeq(), sequentialOrder = new IntSeq();
+    /** memory cell ID -> index of the queued processor that uses it, or -1 if several do */
+    static final IntIntMap owners = new IntIntMap();
+    static final Seq<ForkJoinTask<?>> tasks = new Seq<>();
+    /** index of the first queued processor to run next tick, when the budget is active */
+    static int offset;
+
+    static @Nullable ForkJoinPool pool;
+
+    static{
+        //isolated processors run first, then the processors that are limited by the budget, with the time that is left
+        Events.run(Trigger.afterGameUpdate, () -> {
+            flush();
+            LogicBudget.flush();
+        });
+        Events.on(ResetEvent.class, e -> queued.clear());
+    }
+
+    /** Queues a processor to run its instructions at the end of the update. */
+    public static void queue(LogicBuild build){
+        queued.add(build);
+    }
+
+    /** Runs all queued processors, or as many as the {@link LogicBudget} allows. */
+    public static void flush(){
+        lastParallel = lastSequential = 0;
+        LogicBudget.spent = 0;
+        if(queued.isEmpty()) return;
+
+        long start = Time.nanos();
+        boolean limited = LogicBudget.active();
+        int size = queued.size;
+        if(!limited || offset >= size) offset = 0;
+
+        owners.clear();
+        for(int i = 0; i < size; i++){
+            for(Building mem : queued.items[i].executor.memoryTargets){
+                owners.put(mem.id, owners.containsKey(mem.id) ? -1 : i);
+            }
+        }
+
+        parallel.clear();
+        sequential.clear();
+        parallelOrder.clear();
+        sequentialOrder.clear();
+        for(int r = 0; r < size; r++){
+            LogicBuild build = queued.items[(offset + r) % size];
+            boolean shared = false;
+            for(Building mem : build.executor.memoryTargets){
+                if(owners.get(mem.id, -1) == -1){
+                    shared = true;
+                    break;
+                }
+            }
+            (shared ? sequential : parallel).add(build);
+            (shared ? sequentialOrder : parallelOrder).add(r);
+        }
+        queued.clear();
+
+        int threads = Math.max(OS.cores - 1, 1);
+        boolean threaded = parallel.size >= minBatch * 2 && threads > 1;
+        int batch = threaded ? Math.max(parallel.size / (threads * 4), minBatch) : parallel.size;
+        int round = !limited ? parallel.size : threaded ? batch * threads : 1;
+
+        int ranParallel = 0;
+        while(ranParallel < parallel.size){
+            int end = Math.min(ranParallel + round, parallel.size);
+            if(threaded){
+                runThreaded(ranParallel, end, batch);
+            }else{
+                for(int i = ranParallel; i < end; i++){
+                    parallel.items[i].runInstructions();
+                }
+            }
+            ranParallel = end;
+
+            if(limited && Time.timeSinceNanos(start) > LogicBudget.budget) break;
+        }
+
+        int ranSequential = 0;
+        while(ranSequential < sequential.size && !(limited && ranParallel + ranSequential > 0 && Time.timeSinceNanos(start) > LogicBudget.budget)){
+            sequential.items[ranSequential++].runInstructions();
+        }
+
+        if(limited){
+            //both lists are in flush order, so the first processor that did not run is at the front of one of them
+            int skipped = size;
+            if(ranParallel < parallel.size) skipped = parallelOrder.items[ranParallel];
+            if(ranSequential < sequential.size) skipped = Math.min(skipped, sequentialOrder.items[ranSequential]);
+            if(skipped < size) offset = (offset + skipped) % size;
+
+            LogicBudget.spent = Time.timeSinceNanos(start);
+        }
+
+        lastParallel = ranParallel;
+        lastSequential = ranSequential;
+        parallel.clear();
+        sequential.clear();
+    }
+
+    static void runThreaded(int from, int to, int batch){
+        if(pool == null){
+            pool = new ForkJoinPool(Math.max(OS.cores - 1, 1));
+        }
+
+        tasks.clear();
+        for(int start = from; start < to; start += batch){
+            int first = start, last = Math.min(start + batch, to);
+            tasks.add(pool.submit(() -> {
+                for(int i = first; i < last; i++){
+                    parallel.items[i].runInstructions();
+                }
+            }));
+        }
+
+        for(var task : tasks){
+            task.join();
+        }
+        tasks.clear();
+    }
+}
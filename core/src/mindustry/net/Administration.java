@@ -512,6 +512,16 @@ public class Administration{
         autosaveSpacing = new Config("autosaveSpacing", "Spacing between autosaves in seconds.", 60 * 5),
         debug = new Config("debug", "Enable debug logging.", false, () -> Log.level = debug() ? LogLevel.debug : LogLevel.info),
         snapshotInterval = new Config("snapshotInterval", "Client entity snapshot interval in ms.", 200),
+        interestSyncInterval = new Config("interestSyncInterval", "Entities far outside of a player's view are only sent in every Nth entity snapshot. 1 to disable.", 4),
+        rollingBlockSync = new Config("rollingBlockSync", "Whether block sync only sends buildings whose sync data changed, spread over the sync interval. Only buildings that updated or were changed since they were last checked are serialized. All buildings are resent every 30 seconds, so a missed change is sent at most 30 seconds late.", false),
+        deltaSnapshots = new Config("deltaSnapshots", "Whether entity snapshots only contain fields that changed since the last snapshot acknowledged by each client.", false),
+        parallelLogic = new Config("parallelLogic", "Whether processors that only use their own variables and memory cells run on worker threads. They run after all buildings update instead of in their own update, so other processors see their memory cell writes one tick later. logicBudget still applies.", false),
+        parallelPower = new Config("parallelPower", "Whether power graphs are updated on worker threads. All graphs then update before any building in each tick, so graphs may see building changes one tick later. Only helps on maps with many separate graphs.", false),
+        batchCollisions = new Config("batchCollisions", "Whether bullet collisions are found for all bullets at once, on worker threads when there are many bullets.", false),
+        sharedTargeting = new Config("sharedTargeting", "Whether turrets close to each other share their search for enemy units in each tick.", false),
+        logicBudget = new Config("logicBudget", "Time in microseconds that all processors may run per tick together, including the ones run by parallelLogic. Processors that do not fit run in the next tick. 0 to disable.", 0),
+        pathfinderThreads = new Config("pathfinderThreads", "Amount of worker threads used to update flow fields in parallel. 1 updates every field on the pathfinding thread. Applied on world load.", 1),
+        incrementalPathfinding = new Config("incrementalPathfinding", "Whether flow fields are repaired locally around changed tiles instead of being recalculated from scratch.", true),
         autoPause = new Config("autoPause", "Whether the game should pause when nobody is online.", false),
         roundExtraTime = new Config("roundExtraTime", "Time before loading a new map after the gameover, in seconds.", 12),
         maxLogLength = new Config("maxLogLength", "The Maximum log file size, in bytes.", 1024 * 1024 * 5),
@@ -393,29 +393,26 @@ public class ArcNetProvider implements NetProvider{
     }
 
     public static class PacketSerializer implements NetSerializer{
-        //for debugging total read/write speeds
-        private static final boolean debug = false;
+        /** packets smaller than this are not compressed */
+        static final int minCompressLength = 36;
 
-        ThreadLocal<ByteBuffer> decompressBuffer = Threads.local(() -> ByteBuffer.allocate(32768));
+        ThreadLocal<ByteBuffer> decompressBuffer = Threads.local(() -> ByteBuffer.allocateDirect(32768));
         ThreadLocal<Reads> reads = Threads.local(() -> new Reads(new ByteBufferInput(decompressBuffer.get())));
         ThreadLocal<Writes> writes = Threads.local(() -> new Writes(new ByteBufferOutput(decompressBuffer.get())));
 
-        //for debugging network write counts
-        static WindowedMean upload = new WindowedMean(5), download = new WindowedMean(5);
-        static long lastUpload, lastDownload, uploadAccum, downloadAccum;
-        static int lastPos;
+        //for reading and writing uncompressed packets in place, pointed at the connection's buffer
+        ThreadLocal<ByteBufferInput> directInput = Threads.local(() -> new ByteBufferInput(decompressBuffer.get()));
+        ThreadLocal<ByteBufferOutput> directOutput = Threads.local(() -> new ByteBufferOutput(decompressBuffer.get()));
+        ThreadLocal<Reads> directReads = Threads.local(() -> new Reads(directInput.get()));
+        ThreadLocal<Writes> directWrites = Threads.local(() -> new Writes(directOutput.get()));
+
+        /** whether the last packet of each type was compressed; used to guess whether the next one will be */
+        final boolean[] compressed = new boolean[256];
 
         @Override
         public Object read(ByteBuffer byteBuffer){
-            if(debug){
-                if(Time.timeSinceMillis(lastDownload) >= 1000){
-                    lastDownload = Time.millis();
-                    download.add(downloadAccum);
-                    downloadAccum = 0;
-                    Log.info("Download: @ b/s", download.mean());
-                }
-                downloadAccum += byteBuffer.remaining();
-            }
+            long time = PacketStats.enabled ? Time.nanos() : 0;
+            int start = byteBuffer.position();
 
             byte id = byteBuffer.get();
             if(id == -2){
@@ -423,20 +420,20 @@ public class ArcNetProvider implements NetProvider{
             }else{
                 //read length int, followed by compressed lz4 data
                 Packet packet = Net.newPacket(id);
-                var buffer = decompressBuffer.get();
                 int length = byteBuffer.getShort() & 0xffff;
                 byte compression = byteBuffer.get();
 
-                //no compression, copy over buffer
+                //no compression, read directly from the buffer
                 if(compression == 0){
-                    buffer.position(0).limit(length);
-                    buffer.put(byteBuffer.array(), byteBuffer.position(), length);
-                    buffer.position(0);
-                    packet.read(reads.get(), length);
-                    //move read packets forward
-                    byteBuffer.position(byteBuffer.position() + buffer.position());
+                    int position = byteBuffer.position(), limit = byteBuffer.limit();
+                    byteBuffer.limit(position + length);
+                    directInput.get().buffer = byteBuffer;
+                    packet.read(directReads.get(), length);
+                    byteBuffer.limit(limit);
+                    byteBuffer.position(position + length);
                 }else{
                     //decompress otherwise
+                    var buffer = decompressBuffer.get();
                     int read = decompressor.decompress(byteBuffer, byteBuffer.position(), buffer, 0, length);
 
                     buffer.position(0);
@@ -446,16 +443,16 @@ public class ArcNetProvider implements NetProvider{
                     byteBuffer.position(byteBuffer.position() + read);
                 }
 
+                if(PacketStats.enabled){
+                    PacketStats.read(id, byteBuffer.position() - start, Time.timeSinceNanos(time));
+                }
+
                 return packet;
             }
         }
 
         @Override
         public void write(ByteBuffer byteBuffer, Object o){
-            if(debug){
-                lastPos = byteBuffer.position();
-            }
-
             //write raw buffer
             if(o instanceof ByteBuffer raw){
                 byteBuffer.put(raw);
@@ -464,41 +461,77 @@ public class ArcNetProvider implements NetProvider{
                 writeFramework(byteBuffer, msg);
             }else{
                 if(!(o instanceof Packet pack)) throw new RuntimeException("All sent objects must extend Packet! Class: " + o.getClass());
+                long time = PacketStats.enabled ? Time.nanos() : 0;
+                int start = byteBuffer.position();
+
                 byte id = Net.getPacketId(pack);
                 byteBuffer.put(id);
 
-                var temp = decompressBuffer.get();
-                temp.position(0);
-                temp.limit(temp.capacity());
-                pack.write(writes.get());
+                boolean compressible = !(pack instanceof StreamChunk);
+
+                if(compressible && compressed[id & 0xff]){
+                    //likely to be compressed, so write to the temporary buffer and compress from there
+                    var temp = decompressBuffer.get();
+                    temp.position(0);
+                    temp.limit(temp.capacity());
+                    pack.write(writes.get());
 
-                short length = (short)temp.position();
+                    int length = temp.position();
 
-                //write length, uncompressed
-                byteBuffer.putShort(length);
+                    //write length, uncompressed
+                    byteBuffer.putShort((short)length);
 
-                //don't bother with small packets
-                if(length < 36 || pack instanceof StreamChunk){
-                    //write direct contents...
-                    byteBuffer.put((byte)0); //0 = no compression
-                    byteBuffer.put(temp.array(), 0, length);
+                    if(length < minCompressLength){
+                        compressed[id & 0xff] = false;
+                        byteBuffer.put((byte)0); //0 = no compression
+                        temp.flip();
+                        byteBuffer.put(temp);
+                    }else{
+                        byteBuffer.put((byte)1); //1 = compression
+                        //write compressed data; this does not modify position!
+                        int written = compressor.compress(temp, 0, length, byteBuffer, byteBuffer.position(), byteBuffer.remaining());
+                        //skip to indicate the written, compressed data
+                        byteBuffer.position(byteBuffer.position() + written);
+                    }
                 }else{
-                    byteBuffer.put((byte)1); //1 = compression
-                    //write compressed data; this does not modify position!
-                    int written = compressor.compress(temp, 0, temp.position(), byteBuffer, byteBuffer.position(), byteBuffer.remaining());
-                    //skip to indicate the written, compressed data
-                    byteBuffer.position(byteBuffer.position() + written);
+                    //write straight into the output after the header, which is filled in afterwards
+                    int header = byteBuffer.position(), data = header + 3;
+                    byteBuffer.position(data);
+                    directOutput.get().buffer = byteBuffer;
+                    try{
+                        pack.write(directWrites.get());
+                    }catch(BufferOverflowException e){
+                        if(!compressible) throw e;
+                        //too large to fit uncompressed, write it through the temporary buffer instead
+                        compressed[id & 0xff] = true;
+                        byteBuffer.position(start);
+                        write(byteBuffer, o);
+                        return;
+                    }
+
+                    int length = byteBuffer.position() - data;
+                    byteBuffer.putShort(header, (short)length);
+
+                    //don't bother with small packets
+                    if(length < minCompressLength || !compressible){
+                        byteBuffer.put(header + 2, (byte)0);
+                    }else{
+                        //guessed wrong; compress into the temporary buffer and copy the result back
+                        compressed[id & 0xff] = true;
+                        var temp = decompressBuffer.get();
+                        int written = compressor.compress(byteBuffer, data, length, temp, 0, temp.capacity());
+
+                        byteBuffer.put(header + 2, (byte)1);
+                        byteBuffer.position(data);
+                        temp.position(0);
+                        temp.limit(written);
+                        byteBuffer.put(temp);
+                    }
                 }
-            }
 
-            if(debug){
-                if(Time.timeSinceMillis(lastUpload) >= 1000){
-                    lastUpload = Time.millis();
-                    upload.add(uploadAccum);
-                    uploadAccum = 0;
-                    Log.info("Upload: @ b/s", upload.mean());
+                if(PacketStats.enabled){
+                    PacketStats.sent(id, byteBuffer.position() - start, Time.timeSinceNanos(time));
                 }
-                uploadAccum += byteBuffer.position() - lastPos;
             }
         }
 
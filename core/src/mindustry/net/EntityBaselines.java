@@ -0,0 +1,187 @@
+package mindustry.net;
+
+import arc.struct.*;
+import arc.util.*;
+import arc.util.pooling.Pool.*;
+import arc.util.pooling.*;
+import mindustry.gen.*;
+
+import java.util.*;
+
+/**
+ * Per-connection record of the entity sync data last sent to a client, used to write field-level snapshot deltas.
+ * Every delta packet has an ID that the client acknowledges. When a packet is acknowledged, all older packets that were
+ * not are considered lost, and the entities they contained are sent in full again. Packets that are not acknowledged within
+ * {@link #ackTimeout} snapshots are considered lost as well, since there may be no later packet to acknowledge.
+ */
+public class EntityBaselines{
+    /** Maximum amount of unacknowledged packets before all entities are sent in full again. */
+    static final int maxPending = 64;
+    /** Amount of snapshots after which an unacknowledged packet is considered lost. */
+    static final int ackTimeout = 30;
+
+    private final IntMap<Baseline> baselines = new IntMap<>();
+    /** packet ID -> IDs of entities written in that packet */
+    private final IntMap<IntSeq> pending = new IntMap<>();
+    /** packet ID -> snapshot it was sent in */
+    private final IntIntMap sentAt = new IntIntMap();
+    private final Seq<IntSeq> freeLists = new Seq<>();
+    private final IntSeq tmpKeys = new IntSeq();
+
+    private int nextPacket = 1, snapshot;
+
+    /** @return the last sent data of an entity, or null if it must be sent in full. */
+    public @Nullable Baseline get(int entity){
+        return baselines.get(entity);
+    }
+
+    /** @return the baseline of this entity, created if necessary. */
+    public Baseline obtain(int entity){
+        Baseline base = baselines.get(entity);
+        if(base == null){
+            baselines.put(entity, base = Pools.obtain(Baseline.class, Baseline::new));
+        }
+        return base;
+    }
+
+    /** Forgets the data of an entity, so it is sent in full next time. */
+    public void remove(int entity){
+        Baseline base = baselines.remove(entity);
+        if(base != null) Pools.free(base);
+    }
+
+    /** Begins a new snapshot, and treats packets that were not acknowledged in time as lost. */
+    public void beginSnapshot(){
+        snapshot++;
+
+        tmpKeys.clear();
+        for(var entry : pending){
+            if(snapshot - sentAt.get(entry.key, snapshot) > ackTimeout) tmpKeys.add(entry.key);
+        }
+
+        for(int i = 0; i < tmpKeys.size; i++){
+            lost(tmpKeys.items[i]);
+        }
+    }
+
+    /** @return the ID of a new delta packet. */
+    public int nextPacket(){
+        return nextPacket++;
+    }
+
+    /** Records the entities that were written in a packet. */
+    public void sent(int packet, IntSeq entities){
+        IntSeq list = freeLists.isEmpty() ? new IntSeq() : freeLists.pop();
+        list.clear();
+        list.addAll(entities);
+        pending.put(packet, list);
+        sentAt.put(packet, snapshot);
+
+        if(pending.size > maxPending){
+            clear();
+        }
+    }
+
+    /**
+     * Handles an acknowledgement from the client.
+     * @param resync whether the client could not apply a delta, in which case everything is sent in full again.
+     */
+    public void ack(int packet, boolean resync){
+        if(resync){
+            clear();
+            return;
+        }
+
+        IntSeq acked = pending.remove(packet);
+        sentAt.remove(packet, 0);
+        if(acked != null) freeLists.add(acked);
+
+        //clients drop packets older than the last one they applied, so any older unacknowledged packet is lost
+        tmpKeys.clear();
+        for(var entry : pending){
+            if(entry.key < packet) tmpKeys.add(entry.key);
+        }
+
+        for(int i = 0; i < tmpKeys.size; i++){
+            lost(tmpKeys.items[i]);
+        }
+    }
+
+    /** Forgets the data of all entities in a lost packet, so they are sent in full again. */
+    private void lost(int packet){
+        IntSeq lost = pending.remove(packet);
+        sentAt.remove(packet, 0);
+        if(lost == null) return;
+
+        for(int j = 0; j < lost.size; j++){
+            remove(lost.items[j]);
+        }
+        freeLists.add(lost);
+    }
+
+    /** Removes the data of entities that no longer exist. */
+    public void prune(){
+        tmpKeys.clear();
+        for(var entry : baselines){
+            if(Groups.sync.getByID(entry.key) == null) tmpKeys.add(entry.key);
+        }
+
+        for(int i = 0; i < tmpKeys.size; i++){
+            remove(tmpKeys.items[i]);
+        }
+    }
+
+    /** Forgets everything, so that all entities are sent in full. */
+    public void clear(){
+        for(var base : baselines.values()){
+            Pools.free(base);
+        }
+        baselines.clear();
+
+        for(var list : pending.values()){
+            freeLists.add(list);
+        }
+        pending.clear();
+        sentAt.clear();
+    }
+
+    /** Sync data of one entity, split into fields. */
+    public static class Baseline implements Poolable{
+        public byte[] data = new byte[64];
+        /** start offset of each field, followed by the total length */
+        public int[] offsets = new int[16];
+        public int fields;
+        /** whether any field changed the last time this entity was sent */
+        public boolean changed;
+
+        /**
+         * Copies the data of an entity.
+         * @param fieldOffsets offsets of all fields in the bytes, where the entity's fields start at index first; followed by the end of its data
+         */
+        public void set(byte[] bytes, int[] fieldOffsets, int first, int fields){
+            int start = fieldOffsets[first], length = fieldOffsets[first + fields] - start;
+            if(data.length < length) data = new byte[Math.max(length, data.length * 2)];
+            System.arraycopy(bytes, start, data, 0, length);
+
+            if(offsets.length < fields + 1) offsets = new int[fields + 1];
+            for(int i = 0; i <= fields; i++){
+                offsets[i] = fieldOffsets[first + i] - start;
+            }
+            this.fields = fields;
+        }
+
+        /** @return whether the specified field is the same as in the data, using the same field offsets format as {@link #set}. */
+        public boolean equals(int field, byte[] bytes, int[] fieldOffsets, int first){
+            return Arrays.equals(
+                data, offsets[field], offsets[field + 1],
+                bytes, fieldOffsets[first + field], fieldOffsets[first + field + 1]
+            );
+        }
+
+        @Override
+        public void reset(){
+            fields = 0;
+            changed = false;
+        }
+    }
+}
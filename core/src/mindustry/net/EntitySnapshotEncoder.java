@@ -0,0 +1,107 @@
+package mindustry.net;
+
+import arc.struct.*;
+import arc.util.io.*;
+import mindustry.gen.*;
+
+import java.io.*;
+
+/**
+ * Serializes the sync data of every entity once per snapshot, so that it can be shared between all players.
+ * Per-player snapshots only filter entities and copy their slices of the shared buffer.
+ */
+public class EntitySnapshotEncoder{
+    private final ReusableByteOutStream stream = new ReusableByteOutStream(8192);
+    private final Writes writes = new Writes(new DataOutputStream(stream));
+
+    /** entities in the order they were encoded */
+    private final Seq<Syncc> entities = new Seq<>();
+    /** start offset of each entity's data, followed by the total length */
+    private final IntSeq offsets = new IntSeq();
+    /** for each entity, the index of its first field offset */
+    private final IntSeq firstFields = new IntSeq();
+    /** start offsets of the fields of every entity, each entity's offsets followed by the end of its data */
+    private final IntSeq fieldOffsets = new IntSeq();
+
+    private long encodedId = -1;
+    private boolean encodedFields;
+
+    /**
+     * Encodes all entities, unless they have already been encoded with the same ID and format.
+     * @param id an ID that changes every time entities may have changed.
+     * @param fields whether to encode fields separately for delta snapshots, see {@link Syncc#writeSyncField(Writes, int)}.
+     * Otherwise, each entity is written with its ID and class ID, in the format of regular entity snapshots.
+     */
+    public void encode(long id, boolean fields){
+        if(id == encodedId && fields == encodedFields) return;
+
+        encodedId = id;
+        encodedFields = fields;
+
+        stream.reset();
+        entities.clear();
+        offsets.clear();
+        firstFields.clear();
+        fieldOffsets.clear();
+
+        for(Syncc entity : Groups.sync){
+            entity.beforeWrite();
+
+            entities.add(entity);
+            offsets.add(stream.size());
+
+            if(fields){
+                firstFields.add(fieldOffsets.size);
+                fieldOffsets.add(stream.size());
+                for(int i = 0; entity.writeSyncField(writes, i); i++){
+                    fieldOffsets.add(stream.size());
+                }
+            }else{
+                writes.i(entity.id());
+                writes.b(entity.classId() & 0xFF);
+                entity.writeSync(writes);
+            }
+        }
+
+        offsets.add(stream.size());
+    }
+
+    /** @return the amount of encoded entities. */
+    public int size(){
+        return entities.size;
+    }
+
+    public Syncc get(int index){
+        return entities.get(index);
+    }
+
+    /** @return the buffer that contains the data of all entities. Only valid until the next encode. */
+    public byte[] bytes(){
+        return stream.getBytes();
+    }
+
+    /** @return the offset of an entity's data in {@link #bytes()}. */
+    public int start(int index){
+        return offsets.items[index];
+    }
+
+    public int length(int index){
+        return offsets.items[index + 1] - offsets.items[index];
+    }
+
+    /** @return the amount of fields of an entity, when encoded with fields. */
+    public int fields(int index){
+        int next = index + 1 < firstFields.size ? firstFields.items[index + 1] : fieldOffsets.size;
+        return next - firstFields.items[index] - 1;
+    }
+
+    /** @return the index of an entity's first offset in {@link #fieldOffsets()}. */
+    public int firstField(int index){
+        return firstFields.items[index];
+    }
+
+    /** @return the offsets of all fields in {@link #bytes()}. */
+    public int[] fieldOffsets(){
+        return fieldOffsets.items;
+    }
+}
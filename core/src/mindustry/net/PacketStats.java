@@ -0,0 +1,59 @@
+package mindustry.net;
+
+import java.util.concurrent.atomic.*;
+
+/** Amount, size and serialization time of sent and received packets, per packet type. Only counted while {@link #enabled}. */
+public class PacketStats{
+    public static volatile boolean enabled = false;
+
+    /** indexed by packet ID */
+    public static final AtomicLongArray
+        sentCount = new AtomicLongArray(256), sentBytes = new AtomicLongArray(256), sentNanos = new AtomicLongArray(256),
+        readCount = new AtomicLongArray(256), readBytes = new AtomicLongArray(256), readNanos = new AtomicLongArray(256);
+
+    private static long startTime = System.nanoTime();
+
+    public static void sent(byte id, int bytes, long nanos){
+        int i = id & 0xff;
+        sentCount.incrementAndGet(i);
+        sentBytes.addAndGet(i, bytes);
+        sentNanos.addAndGet(i, nanos);
+    }
+
+    public static void read(byte id, int bytes, long nanos){
+        int i = id & 0xff;
+        readCount.incrementAndGet(i);
+        readBytes.addAndGet(i, bytes);
+        readNanos.addAndGet(i, nanos);
+    }
+
+    public static void reset(){
+        for(int i = 0; i < 256; i++){
+            sentCount.set(i, 0);
+            sentBytes.set(i, 0);
+            sentNanos.set(i, 0);
+            readCount.set(i, 0);
+            readBytes.set(i, 0);
+            readNanos.set(i, 0);
+        }
+        startTime = System.nanoTime();
+    }
+
+    /** @return a table of all packet types that were sent or received since the last reset. */
+    public static String report(){
+        StringBuilder out = new StringBuilder();
+        float seconds = Math.max((System.nanoTime() - startTime) / 1e9f, 0.001f);
+        out.append(String.format("%-28s %10s %12s %10s %10s %12s %10s\n", "packet", "sent", "sent b/s", "write ms", "read", "read b/s", "read ms"));
+
+        for(int i = 0; i < 256; i++){
+            if(sentCount.get(i) == 0 && readCount.get(i) == 0) continue;
+
+            out.append(String.format("%-28s %10d %12.0f %10.2f %10d %12.0f %10.2f\n",
+                Net.newPacket((byte)i).getClass().getSimpleName(),
+                sentCount.get(i), sentBytes.get(i) / seconds, sentNanos.get(i) / 1e6f,
+                readCount.get(i), readBytes.get(i) / seconds, readNanos.get(i) / 1e6f));
+        }
+
+        return out.toString();
+    }
+}
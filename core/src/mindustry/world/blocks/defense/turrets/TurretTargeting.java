@@ -0,0 +1,125 @@
+package mindustry.world.blocks.defense.turrets;
+
+import arc.*;
+import arc.func.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import mindustry.entities.*;
+import mindustry.entities.Units.*;
+import mindustry.game.EventType.*;
+import mindustry.game.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Shares enemy unit searches between turrets of the same team that are close to each other.
+ * The first turret in a cluster that searches in a frame collects all enemies that its team can target around the cluster;
+ * every turret then picks from that list with its own range, predicate and sort, with the same results as {@link Units#bestEnemy}.
+ */
+public class TurretTargeting{
+    /** Whether turrets share their searches. Logic sets this from {@link Config#sharedTargeting} every frame. */
+    public static boolean active;
+
+    /** size of a cluster in world units */
+    static final float clusterSize = tilesize * 16f;
+
+    /** (team, cluster position) -> cluster */
+    static final LongMap<Cluster> clusters = new LongMap<>();
+    static long lastUpdateId = -1;
+
+    static{
+        Events.on(ResetEvent.class, e -> {
+            clusters.clear();
+            lastUpdateId = -1;
+        });
+    }
+
+    /** Same as {@link Units#bestTarget}, but uses shared searches when active. */
+    public static Teamc bestTarget(Team team, float x, float y, float range, Boolf<Unit> unitPred, Boolf<Building> tilePred, Sortf sort){
+        if(team == Team.derelict) return null;
+
+        Unit unit = bestEnemy(team, x, y, range, unitPred, sort);
+        if(unit != null){
+            return unit;
+        }else{
+            return Units.findEnemyTile(team, x, y, range, tilePred);
+        }
+    }
+
+    /** Same as {@link Units#bestEnemy}, but uses shared searches when active. */
+    public static Unit bestEnemy(Team team, float x, float y, float range, Boolf<Unit> predicate, Sortf sort){
+        if(!active) return Units.bestEnemy(team, x, y, range, predicate, sort);
+        if(team == Team.derelict) return null;
+
+        var candidates = candidates(team, x, y, range);
+
+        Unit result = null;
+        float cdist = 0f, cpriority = -99999f;
+
+        for(int i = 0; i < candidates.size; i++){
+            Unit e = candidates.items[i];
+            float half = e.hitSize / 2f;
+            //the hitbox must overlap the search square, like in a tree search
+            if(e.x - half >= x + range || e.x + half <= x - range || e.y - half >= y + range || e.y + half <= y - range) continue;
+            if(e.dead() || !predicate.get(e) || !e.within(x, y, range + half)) continue;
+
+            float cost = sort.cost(e, x, y);
+            if((result == null || cost < cdist || e.type.targetPriority > cpriority) && e.type.targetPriority >= cpriority){
+                result = e;
+                cdist = cost;
+                cpriority = e.type.targetPriority;
+            }
+        }
+
+        return result;
+    }
+
+    /** @return all enemies the team can target in the cluster around this position, extended by at least the range. */
+    static Seq<Unit> candidates(Team team, float x, float y, float range){
+        if(lastUpdateId != state.updateId){
+            lastUpdateId = state.updateId;
+
+            //drop clusters that no turret searched in since the last frame
+            var it = clusters.values().iterator();
+            while(it.hasNext()){
+                var cluster = it.next();
+                if(cluster.updateId < state.updateId - 1){
+                    it.remove();
+                }
+            }
+        }
+
+        int cx = (int)Math.floor(x / clusterSize), cy = (int)Math.floor(y / clusterSize);
+        long key = ((long)team.id << 32) | (Point2.pack(cx, cy) & 0xffffffffL);
+
+        var cluster = clusters.get(key);
+        if(cluster == null){
+            clusters.put(key, cluster = new Cluster());
+        }
+
+        if(cluster.updateId != state.updateId || cluster.range < range){
+            cluster.updateId = state.updateId;
+            cluster.range = range;
+            cluster.units.clear();
+
+            float qx = cx * clusterSize - range, qy = cy * clusterSize - range, size = clusterSize + range * 2f;
+            var units = cluster.units;
+            Units.nearbyEnemies(team, qx, qy, size, size, e -> {
+                if(e.team != Team.derelict && e.targetable(team) && !e.inFogTo(team)){
+                    units.add(e);
+                }
+            });
+        }
+
+        return cluster.units;
+    }
+
+    static class Cluster{
+        final Seq<Unit> units = new Seq<>(Unit.class);
+        long updateId = -1;
+        /** search range the units were collected with */
+        float range;
+    }
+}
@@ -539,13 +539,23 @@ public class LogicBlock extends Block{
 
                 if(accumulator > maxInstructionScale * ipt) accumulator = maxInstructionScale * ipt;
 
-                while(accumulator >= 1f){
-                    executor.runOnce();
-                    accumulator --;
-                    if(executor.yield){
-                        executor.yield = false;
-                        break;
-                    }
+                if(ParallelLogic.active && executor.isolated){
+                    ParallelLogic.queue(this);
+                }else if(LogicBudget.active()){
+                    LogicBudget.queue(this);
+                }else{
+                    runInstructions();
+                }
+            }
+        }
+
+        /** Runs as many instructions as the accumulator allows. */
+        public void runInstructions(){
+            while(accumulator >= 1f){
+                accumulator -= executor.run((int)accumulator);
+                if(executor.yield){
+                    executor.yield = false;
+                    break;
                 }
             }
         }
@@ -0,0 +1,101 @@
+package mindustry.world.blocks.power;
+
+import arc.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+
+import java.util.concurrent.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Updates all power graphs on worker threads, when the first graph would be updated in a frame.
+ * Graphs never share buildings and the main thread waits for them, so the results do not depend on the amount of threads.
+ * <p>
+ * This changes the update order: every graph updates at the position of the first graph updater, so all graphs update before
+ * any building in the tick, and see the buildings as they were at the end of the previous tick. Sequentially, a graph updater
+ * that comes after some buildings would see their changes in the same tick. Graphs created later in the tick still update themselves.
+ */
+public class ParallelPower{
+    /** Whether graphs are updated in parallel instead of in their entity update. Mirrors {@link Config#parallelPower}; see Logic. */
+    public static boolean active;
+
+    /** minimum amount of buildings per task */
+    static final int minShard = 256;
+
+    static final Seq<PowerGraph> graphs = new Seq<>(false, 16, PowerGraph.class);
+    static final Seq<ForkJoinTask<?>> tasks = new Seq<>();
+    static long lastUpdateId = -1;
+
+    static @Nullable ForkJoinPool pool;
+
+    static{
+        Events.on(ResetEvent.class, e -> lastUpdateId = -1);
+    }
+
+    /** Updates the graph, or all graphs at once if this is the first graph updated in this frame. */
+    public static void update(PowerGraph graph){
+        if(lastUpdateId != state.updateId){
+            lastUpdateId = state.updateId;
+            updateAll();
+        }
+
+        //graphs that were created after all graphs were updated
+        if(graph.parallelUpdateId != state.updateId){
+            graph.parallelUpdateId = state.updateId;
+            graph.update();
+        }
+    }
+
+    static void updateAll(){
+        graphs.clear();
+        int total = 0;
+        for(int i = 0; i < Groups.powerGraph.size(); i++){
+            PowerGraph graph = Groups.powerGraph.index(i).graph();
+            graph.parallelUpdateId = state.updateId;
+            graphs.add(graph);
+            total += graph.all.size;
+        }
+
+        int threads = Math.max(OS.cores - 1, 1);
+        if(total < minShard * 2 || graphs.size < 2 || threads <= 1){
+            for(int i = 0; i < graphs.size; i++){
+                graphs.items[i].update();
+            }
+            graphs.clear();
+            return;
+        }
+
+        if(pool == null){
+            pool = new ForkJoinPool(threads);
+        }
+
+        //largest graphs first, so they do not end up in the last task
+        graphs.sort(g -> -g.all.size);
+
+        int shard = Math.max(total / (threads * 4), minShard);
+        tasks.clear();
+        for(int start = 0; start < graphs.size;){
+            int from = start, size = 0;
+            while(start < graphs.size && size < shard){
+                size += graphs.items[start++].all.size;
+            }
+            int to = start;
+
+            tasks.add(pool.submit(() -> {
+                for(int i = from; i < to; i++){
+                    graphs.items[i].update();
+                }
+            }));
+        }
+
+        for(var task : tasks){
+            task.join();
+        }
+        tasks.clear();
+        graphs.clear();
+    }
+}
@@ -11,13 +11,35 @@ public class PowerGraph{
     private static final Seq<Building> outArray2 = new Seq<>();
     private static final IntSet closedSet = new IntSet();
 
+    //state of the search in split()
+    private static final Seq<Building> splitStarts = new Seq<>();
+    private static final Seq<Queue<Building>> splitQueues = new Seq<>();
+    /** building ID -> branch that reached it first */
+    private static final IntIntMap splitBranches = new IntIntMap();
+    private static final Seq<Building> splitVisited = new Seq<>();
+    /** union-find parent of each branch; branches are merged when their searches meet */
+    private static final IntSeq splitParents = new IntSeq();
+    /** whether the search of a branch root has covered its whole component */
+    private static final BoolSeq splitDone = new BoolSeq();
+    private static final IntSet splitMoved = new IntSet();
+    /** new graph of each branch root that splits off */
+    private static final Seq<PowerGraph> splitGraphs = new Seq<>();
+
     //do not modify any of these unless you know what you're doing!
     public final Seq<Building> producers = new Seq<>(false, 16, Building.class);
     public final Seq<Building> consumers = new Seq<>(false, 16, Building.class);
     public final Seq<Building> batteries = new Seq<>(false, 16, Building.class);
     public final Seq<Building> all = new Seq<>(false, 16, Building.class);
 
+    /** Power requested by each consumer in the last update, in the same order as {@link #consumers}. */
+    private float[] requested = new float[16];
+    /** Capacity of each battery, in the same order as {@link #batteries}. Rebuilt when batteries are added or removed. */
+    private float[] batteryCapacities = new float[16];
+    private boolean batteriesChanged = true;
+
     private final @Nullable PowerGraphUpdater entity;
+    /** {@link mindustry.core.GameState#updateId} of the last update by {@link ParallelPower}. */
+    long parallelUpdateId = -1;
     private final WindowedMean powerBalance = new WindowedMean(60);
     private float lastPowerProduced, lastPowerNeeded, lastPowerStored;
     private float lastScaledPowerIn, lastScaledPowerOut, lastCapacity;
@@ -213,6 +235,94 @@ public class PowerGraph{
         }
     }
 
+    /** Same as {@link #getPowerNeeded()}, but also stores the power requested by each consumer for {@link #distributePowerCached}. */
+    private float updatePowerNeeded(){
+        if(requested.length < consumers.size) requested = new float[Math.max(consumers.size, requested.length * 2)];
+
+        float powerNeeded = 0f;
+        var items = consumers.items;
+        var requested = this.requested;
+        for(int i = 0; i < consumers.size; i++){
+            var consumer = items[i];
+            var consumePower = consumer.block.consPower;
+            if(consumer.shouldConsumePower || consumePower.buffered){
+                requested[i] = consumePower.requestedPower(consumer);
+            }
+            if(consumer.shouldConsumePower){
+                powerNeeded += requested[i] * consumer.delta();
+            }
+        }
+        return powerNeeded;
+    }
+
+    private void updateBatteryCapacities(){
+        if(!batteriesChanged) return;
+        batteriesChanged = false;
+
+        if(batteryCapacities.length < batteries.size) batteryCapacities = new float[Math.max(batteries.size, batteryCapacities.length * 2)];
+        var items = batteries.items;
+        for(int i = 0; i < batteries.size; i++){
+            batteryCapacities[i] = items[i].block.consPower.capacity;
+        }
+    }
+
+    /** Uses stored battery power, like {@link #useBatteries(float)}, with an already known amount of stored power. */
+    private float useBatteries(float needed, float stored){
+        if(Mathf.equal(stored, 0f)) return 0f;
+
+        float used = Math.min(stored, needed);
+        float remaining = 1f - Math.min(1.0f, needed / stored);
+        var items = batteries.items;
+        for(int i = 0; i < batteries.size; i++){
+            var battery = items[i];
+            if(battery.enabled){
+                battery.power.status *= remaining;
+            }
+        }
+        return used;
+    }
+
+    /** Charges batteries, like {@link #chargeBatteries(float)}, with an already known amount of missing power. */
+    private float chargeBatteries(float excess, float capacity){
+        //how much of the missing in each battery % is charged
+        float chargedPercent = Math.min(excess/capacity, 1f);
+        if(Mathf.equal(capacity, 0f)) return 0f;
+
+        var items = batteries.items;
+        var capacities = batteryCapacities;
+        for(int i = 0; i < batteries.size; i++){
+            var battery = items[i];
+            if(battery.enabled && capacities[i] > 0f){
+                battery.power.status += (1f - battery.power.status) * chargedPercent;
+            }
+        }
+        return Math.min(excess, capacity);
+    }
+
+    /** Same as {@link #distributePower(float, float, boolean)}, using the requested power stored in the last {@link #updatePowerNeeded()}. */
+    private void distributePowerCached(float needed, float produced, boolean charged){
+        float coverage = Mathf.zero(needed) && Mathf.zero(produced) && !charged && Mathf.zero(lastPowerStored) ? 0f : Mathf.zero(needed) ? 1f : Math.min(1, produced / needed);
+        var items = consumers.items;
+        var requested = this.requested;
+        for(int i = 0; i < consumers.size; i++){
+            var consumer = items[i];
+            var cons = consumer.block.consPower;
+            if(cons.buffered){
+                if(!Mathf.zero(cons.capacity)){
+                    float maximumRate = requested[i] * coverage * consumer.delta();
+                    consumer.power.status = Mathf.clamp(consumer.power.status + maximumRate / cons.capacity);
+                }
+            }else if(consumer.shouldConsumePower){
+                consumer.power.status = coverage;
+            }else{
+                consumer.power.status = Math.min(1, produced / (needed + cons.usage * consumer.delta()));
+                if(Float.isNaN(consumer.power.status)){
+                    consumer.power.status = 0f;
+                }
+            }
+        }
+    }
+
     public void update(){
         if(!consumers.isEmpty() && consumers.first().cheating()){
             //when cheating, just set status to 1
@@ -224,16 +334,31 @@ public class PowerGraph{
             return;
         }
 
-        float powerNeeded = getPowerNeeded();
+        float powerNeeded = updatePowerNeeded();
         float powerProduced = getPowerProduced();
 
+        //stored power, free capacity and total capacity of all batteries in one pass
+        updateBatteryCapacities();
+        float stored = 0f, missing = 0f, total = 0f;
+        var batteryItems = batteries.items;
+        var capacities = batteryCapacities;
+        for(int i = 0; i < batteries.size; i++){
+            var battery = batteryItems[i];
+            if(battery.enabled){
+                float status = battery.power.status, capacity = capacities[i];
+                stored += status * capacity;
+                missing += (1f - status) * capacity;
+                total += capacity;
+            }
+        }
+
         lastPowerNeeded = powerNeeded;
         lastPowerProduced = powerProduced;
 
         lastScaledPowerIn = (powerProduced + energyDelta) / Time.delta;
         lastScaledPowerOut = powerNeeded / Time.delta;
-        lastCapacity = getTotalBatteryCapacity();
-        lastPowerStored = getBatteryStored();
+        lastCapacity = total;
+        lastPowerStored = stored;
 
         powerBalance.add((lastPowerProduced - lastPowerNeeded + energyDelta) / Time.delta);
         energyDelta = 0f;
@@ -243,16 +368,16 @@ public class PowerGraph{
 
             if(!Mathf.equal(powerNeeded, powerProduced)){
                 if(powerNeeded > powerProduced){
-                    float powerBatteryUsed = useBatteries(powerNeeded - powerProduced);
+                    float powerBatteryUsed = useBatteries(powerNeeded - powerProduced, stored);
                     powerProduced += powerBatteryUsed;
                     lastPowerProduced += powerBatteryUsed;
                 }else if(powerProduced > powerNeeded){
                     charged = true;
-                    powerProduced -= chargeBatteries(powerProduced - powerNeeded);
+                    powerProduced -= chargeBatteries(powerProduced - powerNeeded, missing);
                 }
             }
 
-            distributePower(powerNeeded, powerProduced, charged);
+            distributePowerCached(powerNeeded, powerProduced, charged);
         }
     }
 
@@ -283,20 +408,26 @@ public class PowerGraph{
                 if(build.power.graph.entity != null) build.power.graph.entity.remove();
             }
 
-            build.power.graph = this;
-            build.power.init = true;
-            all.add(build);
-
-            if(build.block.outputsPower && build.block.consumesPower && !build.block.consPower.buffered){
-                producers.add(build);
-                consumers.add(build);
-            }else if(build.block.outputsPower && build.block.consumesPower){
-                batteries.add(build);
-            }else if(build.block.outputsPower){
-                producers.add(build);
-            }else if(build.block.consumesPower && build.block.consPower != null){
-                consumers.add(build);
-            }
+            insert(build);
+        }
+    }
+
+    /** Adds a building to the lists of this graph, without touching its previous graph. */
+    private void insert(Building build){
+        build.power.graph = this;
+        build.power.init = true;
+        all.add(build);
+
+        if(build.block.outputsPower && build.block.consumesPower && !build.block.consPower.buffered){
+            producers.add(build);
+            consumers.add(build);
+        }else if(build.block.outputsPower && build.block.consumesPower){
+            batteries.add(build);
+            batteriesChanged = true;
+        }else if(build.block.outputsPower){
+            producers.add(build);
+        }else if(build.block.consumesPower && build.block.consPower != null){
+            consumers.add(build);
         }
     }
 
@@ -309,6 +440,7 @@ public class PowerGraph{
         producers.clear();
         consumers.clear();
         batteries.clear();
+        batteriesChanged = true;
         //nothing left
         if(entity != null) entity.remove();
     }
@@ -335,45 +467,173 @@ public class PowerGraph{
         producers.remove(build);
         consumers.remove(build);
         batteries.remove(build);
+        batteriesChanged = true;
     }
 
-    /** Note that this does not actually remove the building from the graph;
-     * it creates *new* graphs that contain the correct buildings. Doing this invalidates the graph. */
+    /**
+     * Removes a building from this graph, and moves any parts that are no longer connected to the rest into new graphs.
+     * The largest remaining part stays in this graph.
+     */
     public void remove(Building tile){
+        splitStarts.clear();
+        splitStarts.addAll(tile.getPowerConnections(outArray1));
+        split(splitStarts, tile);
+    }
 
-        //go through all the connections of this tile
-        for(Building other : tile.getPowerConnections(outArray1)){
-            //a graph has already been assigned to this tile from a previous call, skip it
-            if(other.power.graph != this) continue;
+    /** Updates the graphs of two buildings after the connection between them was removed. */
+    public static void disconnect(Building a, @Nullable Building b){
+        if(b != null && b.power != null && a.power.graph == b.power.graph){
+            splitStarts.clear();
+            splitStarts.add(a, b);
+            a.power.graph.split(splitStarts, null);
+        }else{
+            new PowerGraph().reflow(a);
+            if(b != null && b.power != null && b.power.graph != a.power.graph){
+                new PowerGraph().reflow(b);
+            }
+        }
+    }
 
-            //create graph for this branch
-            PowerGraph graph = new PowerGraph();
-            graph.checkAdd();
-            graph.add(other);
-            //add to queue for BFS
+    /**
+     * Searches from all start buildings at once, taking one step per search in turn. Searches that meet are merged.
+     * Once at most one unfinished search is left, every finished search has covered a part that is disconnected from the rest, which is
+     * moved into a new graph. This way, searching and building the new graphs costs time proportional to the size of the parts that split off,
+     * instead of the whole graph. Removing those parts from this graph is still a single linear pass over its lists, without any searches in them.
+     * @param removed a building that is being removed from this graph, which is skipped
+     */
+    private void split(Seq<Building> starts, @Nullable Building removed){
+        splitBranches.clear();
+        splitVisited.clear();
+        splitParents.clear();
+        splitDone.clear();
+
+        int branches = 0;
+        for(Building start : starts){
+            if(start == removed || start.power == null || start.power.graph != this || splitBranches.containsKey(start.id)) continue;
+
+            if(splitQueues.size <= branches) splitQueues.add(new Queue<>());
+            var queue = splitQueues.get(branches);
             queue.clear();
-            queue.addLast(other);
-            while(queue.size > 0){
-                //get child from queue
+            queue.addLast(start);
+
+            splitBranches.put(start.id, branches);
+            splitVisited.add(start);
+            splitParents.add(branches);
+            splitDone.add(false);
+            branches++;
+        }
+
+        int active = branches;
+        while(active > 1){
+            for(int i = 0; i < branches && active > 1; i++){
+                var queue = splitQueues.get(i);
+                if(queue.isEmpty()) continue;
+
                 Building child = queue.removeFirst();
-                //add it to the new branch graph
-                graph.add(child);
-                //go through connections
                 for(Building next : child.getPowerConnections(outArray2)){
-                    //make sure it hasn't looped back, and that the new graph being assigned hasn't already been assigned
-                    //also skip closed tiles
-                    if(next != tile && next.power.graph != graph){
-                        graph.add(next);
+                    if(next == removed || next.power == null) continue;
+
+                    int other = splitBranches.get(next.id, -1);
+                    if(other == -1){
+                        splitBranches.put(next.id, i);
+                        splitVisited.add(next);
                         queue.addLast(next);
+                    }else{
+                        int root = findBranch(i), otherRoot = findBranch(other);
+                        if(root != otherRoot){
+                            //the searches met, so they are in the same part
+                            splitParents.set(otherRoot, root);
+                            if(splitDone.get(otherRoot)){
+                                splitDone.set(otherRoot, false);
+                            }else{
+                                active--;
+                            }
+                        }
                     }
                 }
+
+                if(queue.isEmpty()){
+                    int root = findBranch(i);
+                    boolean done = true;
+                    for(int j = 0; j < branches; j++){
+                        if(!splitQueues.get(j).isEmpty() && findBranch(j) == root){
+                            done = false;
+                            break;
+                        }
+                    }
+
+                    if(done){
+                        splitDone.set(root, true);
+                        active--;
+                    }
+                }
+            }
+        }
+
+        //the part that stays in this graph: the unfinished search, or the largest part if all are finished
+        int kept = -1;
+        for(int i = 0; i < branches; i++){
+            if(findBranch(i) == i && !splitDone.get(i)) kept = i;
+        }
+
+        if(kept == -1 && branches > 0){
+            int[] sizes = new int[branches];
+            for(int i = 0; i < splitVisited.size; i++){
+                sizes[findBranch(splitBranches.get(splitVisited.get(i).id))]++;
+            }
+            kept = 0;
+            for(int i = 1; i < branches; i++){
+                if(sizes[i] > sizes[kept]) kept = i;
+            }
+        }
+
+        splitMoved.clear();
+        if(removed != null) splitMoved.add(removed.id);
+
+        splitGraphs.clear();
+        for(int root = 0; root < branches; root++){
+            splitGraphs.add(root == kept || findBranch(root) != root ? null : new PowerGraph());
+        }
+
+        //every visited building is moved into the graph of its part at once, instead of searching the visited list for each part
+        for(int i = 0; i < splitVisited.size; i++){
+            Building build = splitVisited.get(i);
+            PowerGraph graph = splitGraphs.get(findBranch(splitBranches.get(build.id)));
+            if(graph != null){
+                graph.insert(build);
+                splitMoved.add(build.id);
             }
+        }
+
+        for(int root = 0; root < branches; root++){
+            PowerGraph graph = splitGraphs.get(root);
+            if(graph == null) continue;
+
+            graph.checkAdd();
             //update the graph once so direct consumers without any connected producer lose their power
             graph.update();
         }
+        splitGraphs.clear();
+
+        if(splitMoved.size > 0){
+            all.removeAll(b -> splitMoved.contains(b.id));
+            producers.removeAll(b -> splitMoved.contains(b.id));
+            consumers.removeAll(b -> splitMoved.contains(b.id));
+            batteries.removeAll(b -> splitMoved.contains(b.id));
+            batteriesChanged = true;
+        }
 
-        //implied empty graph here
-        if(entity != null) entity.remove();
+        if(all.isEmpty() && entity != null) entity.remove();
+        if(removed != null) removed.power.graph = new PowerGraph();
+    }
+
+    private static int findBranch(int branch){
+        int[] parents = splitParents.items;
+        while(parents[branch] != branch){
+            parents[branch] = parents[parents[branch]];
+            branch = parents[branch];
+        }
+        return branch;
     }
 
     public int getId(){
@@ -63,17 +63,8 @@ public class PowerNode extends PowerBlock{
                 power.links.removeValue(value);
                 if(valid) other.power.links.removeValue(entity.pos());
 
-                PowerGraph newgraph = new PowerGraph();
-
-                //reflow from this point, covering all tiles on this side
-                newgraph.reflow(entity);
-
-                if(valid && other.power.graph != newgraph){
-                    //create new graph for other end
-                    PowerGraph og = new PowerGraph();
-                    //reflow from other end
-                    og.reflow(other);
-                }
+                //split the graph if the two ends are no longer connected
+                PowerGraph.disconnect(entity, valid ? other : null);
             }else if(linkValid(entity, other) && valid && power.links.size < maxNodes){
 
                 power.links.addUnique(other.pos());
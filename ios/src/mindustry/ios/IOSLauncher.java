@@ -7,7 +7,6 @@ import arc.files.*;
 import arc.func.*;
 import arc.scene.ui.layout.*;
 import arc.util.*;
-import arc.util.io.*;
 import mindustry.*;
 import mindustry.game.EventType.*;
 import mindustry.game.Saves.*;
@@ -19,9 +18,7 @@ import org.robovm.apple.foundation.*;
 import org.robovm.apple.uikit.*;
 import org.robovm.objc.block.*;
 
-import java.io.*;
 import java.util.*;
-import java.util.zip.*;
 
 import static mindustry.Vars.*;
 import static org.robovm.apple.foundation.NSPathUtilities.*;
@@ -222,7 +219,7 @@ public class IOSLauncher extends IOSApplication.Delegate{
 
                 try{
                     if(SaveIO.isSaveValid(file)){
-                        SaveMeta meta = SaveIO.getMeta(new DataInputStream(new InflaterInputStream(file.read(Streams.defaultBufferSize))));
+                        SaveMeta meta = SaveIO.getMeta(SaveIO.getStream(file));
                         if(meta.tags.containsKey("name")){
                             //is map
                             if(!ui.editor.isShown()){
@@ -17,6 +17,7 @@ import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.io.*;
+import mindustry.logic.*;
 import mindustry.maps.Map;
 import mindustry.maps.*;
 import mindustry.maps.Maps.*;
@@ -240,12 +241,14 @@ public class ServerControl implements ApplicationListener{
                     Fi file = saveDirectory.child(fileName);
                     info("Autosaving...");
 
-                    try{
-                        SaveIO.save(file);
-                        info("Autosave completed.");
-                    }catch(Throwable e){
-                        err("Autosave failed.", e);
-                    }
+                    //only the capture of the world happens in this frame, compression and file output do not block the server
+                    SaveIO.saveAsync(file, e -> {
+                        if(e == null){
+                            info("Autosave completed.");
+                        }else{
+                            err("Autosave failed.", e);
+                        }
+                    });
                 }
             }
 
@@ -1046,6 +1049,45 @@ public class ServerControl implements ApplicationListener{
             info("@ MB collected. Memory usage now at @ MB.", pre - post, post);
         });
 
+        handler.register("packetstats", "[on/off]", "Display sent and received packet statistics, or toggle collecting them.", arg -> {
+            if(arg.length > 0){
+                PacketStats.enabled = arg[0].equals("on");
+                PacketStats.reset();
+                info("Packet statistics @.", PacketStats.enabled ? "enabled" : "disabled");
+            }else if(!PacketStats.enabled){
+                info("Packet statistics are disabled. Use 'packetstats on' to enable them.");
+            }else{
+                info(PacketStats.report());
+            }
+        });
+
+        handler.register("logicprofile", "[on/off/reset/dump]", "Display the most expensive processors and logic instructions, toggle profiling, or write the full report to a file.", arg -> {
+            if(arg.length > 0 && (arg[0].equals("on") || arg[0].equals("off"))){
+                LogicProfiler.enabled = arg[0].equals("on");
+                LogicProfiler.reset();
+                info("Logic profiling @.", LogicProfiler.enabled ? "enabled" : "disabled");
+            }else if(!LogicProfiler.enabled){
+                info("Logic profiling is disabled. Use 'logicprofile on' to enable it.");
+            }else if(arg.length > 0 && arg[0].equals("reset")){
+                LogicProfiler.reset();
+                info("Logic profile reset.");
+            }else if(arg.length > 0 && arg[0].equals("dump")){
+                Fi file = Core.settings.getDataDirectory().child("logic-profile.txt");
+                file.writeString(LogicProfiler.report(Integer.MAX_VALUE));
+                info("Logic profile written to @.", file.absolutePath());
+            }else{
+                info(LogicProfiler.report(20));
+            }
+        });
+
+        handler.register("pathstats", "Display how many unit path requests shared paths, and how long units waited for their paths.", arg -> {
+            if(!state.isGame()){
+                err("Not playing. Host first.");
+                return;
+            }
+            info(controlPath.stats());
+        });
+
         handler.register("yes", "Run the last suggested incorrect command.", arg -> {
             if(suggested == null){
                 err("There is nothing to say yes to.");
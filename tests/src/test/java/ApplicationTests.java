@@ -1,6 +1,8 @@
 import arc.*;
 import arc.backend.headless.*;
 import arc.files.*;
+import arc.func.*;
+import arc.math.*;
 import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
@@ -8,14 +10,18 @@ import arc.util.io.*;
 import arc.util.serialization.*;
 import arc.util.serialization.JsonValue.*;
 import mindustry.*;
+import mindustry.ai.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.core.GameState.*;
 import mindustry.ctype.*;
+import mindustry.entities.*;
 import mindustry.entities.units.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.io.*;
+import mindustry.io.versions.*;
+import mindustry.logic.*;
 import mindustry.maps.*;
 import mindustry.mod.*;
 import mindustry.mod.Mods.*;
@@ -23,7 +29,12 @@ import mindustry.net.*;
 import mindustry.net.Packets.*;
 import mindustry.type.*;
 import mindustry.world.*;
+import mindustry.world.blocks.defense.turrets.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+import mindustry.world.blocks.logic.MemoryBlock.*;
+import mindustry.world.blocks.logic.*;
 import mindustry.world.blocks.payloads.*;
+import mindustry.world.blocks.power.*;
 import mindustry.world.blocks.storage.*;
 import org.json.*;
 import org.junit.jupiter.api.*;
@@ -266,6 +277,254 @@ public class ApplicationTests{
         assertFalse(Groups.unit.isEmpty(), "No enemies spawned.");
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"groundZero", "frozenForest", "craters", "biomassFacility"})
+    void flowfieldMatchesFifoSearch(String mapName){
+        world.loadMap(maps.loadInternalMap(mapName));
+
+        Pathfinder.Flowfield field = pathfinder.getField(state.rules.waveTeam, Pathfinder.costGround, Pathfinder.fieldCore);
+        assertTrue(field.hasCompleteWeights(), "Ground flow field was not preloaded on " + mapName);
+
+        long[] relaxations = {0};
+        int[] weights = fifoWeights(field, relaxations);
+        int w = world.width();
+
+        assertTrue(field.relaxations <= relaxations[0], "Bucket frontier should not relax more tiles than the FIFO frontier.");
+        for(int i = 0; i < weights.length; i++){
+            if(weights[i] != Integer.MAX_VALUE){
+                assertEquals(weights[i], field.completeWeights[i], "Weight mismatch at " + (i % w) + ", " + (i / w));
+            }
+        }
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest
+    @ValueSource(strings = {"groundZero", "frozenForest", "craters", "biomassFacility"})
+    void flowfieldFrontierBenchmark(String mapName){
+        world.loadMap(maps.loadInternalMap(mapName));
+
+        Pathfinder.Flowfield field = pathfinder.getField(state.rules.waveTeam, Pathfinder.costGround, Pathfinder.fieldCore);
+        long[] relaxations = {0};
+        long start = Time.nanos();
+        fifoWeights(field, relaxations);
+
+        Log.info("@: FIFO frontier: @ relaxations, @ms; bucket frontier: @ relaxations, @ms", mapName,
+            relaxations[0], Time.timeSinceNanos(start) / (float)Time.nanosPerMilli, field.relaxations, field.convergeTimeMs());
+    }
+
+    /** @return the weights found by the previous FIFO frontier, which re-inserts a tile every time a cheaper cost is found. */
+    int[] fifoWeights(Pathfinder.Flowfield field, long[] relaxations){
+        int w = world.width(), h = world.height();
+        int[] weights = new int[w * h];
+        java.util.Arrays.fill(weights, Integer.MAX_VALUE);
+        IntQueue frontier = new IntQueue();
+        var cost = Pathfinder.costTypes.get(Pathfinder.costGround);
+        int team = state.rules.waveTeam.id;
+
+        for(int i = 0; i < weights.length; i++){
+            if(field.completeWeights[i] == 0){
+                weights[i] = 0;
+                frontier.addFirst(i);
+            }
+        }
+
+        while(frontier.size > 0){
+            int tile = frontier.removeLast();
+            for(Point2 point : Geometry.d4){
+                int dx = tile % w + point.x, dy = tile / w + point.y;
+                if(dx < 0 || dy < 0 || dx >= w || dy >= h) continue;
+
+                int next = dx + dy * w, other = cost.getCost(team, pathfinder.get(dx, dy));
+                if(other != -1 && weights[next] > weights[tile] + other){
+                    weights[next] = weights[tile] + other;
+                    frontier.addFirst(next);
+                    relaxations[0]++;
+                }
+            }
+        }
+
+        return weights;
+    }
+
+    @Test
+    void compiledLogicMatchesInterpreter(){
+        String code = """
+        set i 0
+        set acc 1
+        op add i i 1
+        op mul acc acc 1.5
+        op mod acc acc 1000
+        op idiv q acc 7
+        op shl s i 2
+        op xor s s q
+        op sqrt r acc
+        op max m r s
+        op floor f r
+        op lessThan c f q
+        jump 2 lessThan i 500
+        op sub d m r
+        set x @counter
+        op div z d 0
+        """;
+
+        LExecutor interpreted = new LExecutor(), compiled = new LExecutor();
+        interpreted.load(LAssembler.assemble(code, false));
+        compiled.load(LAssembler.assemble(code, false));
+
+        for(int step = 0; step < 10000; step += 37){
+            for(int i = 0; i < 37; i++){
+                interpreted.runOnce();
+            }
+            assertEquals(37, compiled.run(37));
+
+            assertEquals(interpreted.vars.length, compiled.vars.length);
+            for(int i = 0; i < interpreted.vars.length; i++){
+                LVar a = interpreted.vars[i], b = compiled.vars[i];
+                assertEquals(a.name, b.name);
+                assertEquals(a.isobj, b.isobj, a.name);
+                assertEquals(a.isobj ? a.objval : a.numval, b.isobj ? b.objval : b.numval, a.name);
+            }
+        }
+    }
+
+    @Test
+    void parallelLogicMatchesSequential(){
+        int processors = 1000, ticks = 100;
+        LogicBlock block = (LogicBlock)Blocks.microProcessor;
+        int lastIpt = block.instructionsPerTick;
+        block.instructionsPerTick = 100;
+
+        double[][] results = new double[2][];
+
+        try{
+            for(int run = 0; run < 2; run++){
+                Seq<Building> cells = createProcessors(processors, 40);
+
+                ParallelLogic.active = run == 1;
+                runProcessors(ticks);
+
+                results[run] = new double[(processors + 1) * 2];
+                for(int i = 0; i <= processors; i++){
+                    var memory = ((MemoryBuild)cells.get(i)).memory;
+                    results[run][i * 2] = memory[0];
+                    results[run][i * 2 + 1] = memory[1];
+                }
+
+                if(run == 1){
+                    //the first processor and the reader share a cell
+                    assertEquals(2, ParallelLogic.lastSequential);
+                    assertEquals(processors - 1, ParallelLogic.lastParallel);
+
+                    //with a budget that is always exceeded, only the first round runs, and the next tick continues after it
+                    LogicBudget.budget = 1;
+                    for(Building build : Groups.build){
+                        build.update();
+                    }
+                    ParallelLogic.flush();
+                    int ran = ParallelLogic.lastParallel + ParallelLogic.lastSequential;
+                    assertTrue(ran > 0 && ran < processors + 1, "Processors that ran with a budget: " + ran);
+                    LogicBudget.budget = 0;
+                }
+            }
+        }finally{
+            block.instructionsPerTick = lastIpt;
+            ParallelLogic.active = false;
+            LogicBudget.budget = 0;
+        }
+
+        assertTrue(results[0][0] > 0);
+        assertArrayEquals(results[0], results[1]);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void parallelLogicBenchmark(){
+        int processors = 4000, ticks = 100;
+        LogicBlock block = (LogicBlock)Blocks.microProcessor;
+        int lastIpt = block.instructionsPerTick;
+        block.instructionsPerTick = 100;
+
+        try{
+            for(int run = 0; run < 2; run++){
+                createProcessors(processors, 40);
+
+                ParallelLogic.active = run == 1;
+                Time.mark();
+                runProcessors(ticks);
+                Log.info("@ processors, @: @ms", processors, run == 1 ? "parallel" : "sequential", Time.elapsed());
+            }
+        }finally{
+            block.instructionsPerTick = lastIpt;
+            ParallelLogic.active = false;
+        }
+    }
+
+    /**
+     * Places processors that only use their own memory cell, and one reader processor that also reads the cell of the first one,
+     * so neither the first processor nor the reader may run on a worker thread.
+     * @return the memory cells of all processors, with the cell of the reader last.
+     */
+    Seq<Building> createProcessors(int processors, int columns){
+        String code = """
+        read i cell1 0
+        op add i i 1
+        op mul v i 3.5
+        op mod v v 97
+        jump 6 lessThan v 50
+        write v cell1 1
+        write i cell1 0
+        """;
+
+        String readerCode = """
+        read v cell1 1
+        op add t t v
+        op mod t t 1013
+        write t cell2 0
+        """;
+
+        int rows = processors / columns;
+        Tiles tiles = world.resize(columns * 2, rows + 1);
+        world.beginMapLoad();
+        tiles.fill();
+        world.endMapLoad();
+        state.set(State.playing);
+
+        Seq<Building> cells = new Seq<>();
+        for(int i = 0; i < processors; i++){
+            int x = (i % columns) * 2, y = i / columns;
+            world.tile(x, y).setBlock(Blocks.microProcessor, Team.sharded);
+            world.tile(x + 1, y).setBlock(Blocks.memoryCell, Team.sharded);
+            cells.add(world.build(x + 1, y));
+
+            var build = (LogicBuild)world.build(x, y);
+            build.links.add(new LogicLink(x + 1, y, "cell1", true));
+            build.updateCode(code);
+            assertTrue(build.executor.isolated);
+        }
+
+        world.tile(0, rows).setBlock(Blocks.microProcessor, Team.sharded);
+        world.tile(1, rows).setBlock(Blocks.memoryCell, Team.sharded);
+        cells.add(world.build(1, rows));
+
+        var reader = (LogicBuild)world.build(0, rows);
+        reader.links.add(new LogicLink(1, 0, "cell1", true));
+        reader.links.add(new LogicLink(1, rows, "cell2", true));
+        reader.updateCode(readerCode);
+        assertTrue(reader.executor.isolated);
+
+        return cells;
+    }
+
+    void runProcessors(int ticks){
+        for(int i = 0; i < ticks; i++){
+            Time.update();
+            for(Building build : Groups.build){
+                build.update();
+            }
+            ParallelLogic.flush();
+        }
+    }
+
     @Test
     void createMap(){
         Tiles tiles = world.resize(8, 8);
@@ -302,6 +561,46 @@ public class ApplicationTests{
         assertEquals(tile.build.items.total(), 45);
     }
 
+    @Test
+    void powerGraphSplit(){
+        createMap();
+
+        //a row of batteries with one branching off the middle, and a loop of batteries
+        for(int x = 0; x < 7; x++){
+            world.tile(x, 1).setBlock(Blocks.battery, Team.sharded);
+        }
+        world.tile(3, 2).setBlock(Blocks.battery, Team.sharded);
+        for(int x = 0; x < 3; x++){
+            for(int y = 4; y < 7; y++){
+                if(x != 1 || y != 5) world.tile(x, y).setBlock(Blocks.battery, Team.sharded);
+            }
+        }
+
+        assertEquals(8, world.build(0, 1).power.graph.all.size);
+        assertEquals(8, world.build(0, 4).power.graph.all.size);
+
+        world.tile(3, 1).remove();
+
+        PowerGraph left = world.build(0, 1).power.graph, right = world.build(6, 1).power.graph, up = world.build(3, 2).power.graph;
+        assertEquals(3, left.all.size);
+        assertEquals(3, right.all.size);
+        assertEquals(1, up.all.size);
+        assertNotSame(left, right);
+        assertNotSame(left, up);
+        assertNotSame(right, up);
+        assertSame(left, world.build(2, 1).power.graph);
+        assertSame(right, world.build(4, 1).power.graph);
+
+        //removing a building from a loop does not split it
+        PowerGraph loop = world.build(0, 4).power.graph;
+        Building removed = world.build(0, 5);
+        world.tile(0, 5).remove();
+        assertSame(loop, world.build(0, 4).power.graph);
+        assertSame(loop, world.build(0, 6).power.graph);
+        assertEquals(7, loop.all.size);
+        assertFalse(loop.batteries.contains(removed));
+    }
+
     @Test
     void timers(){
         boolean[] ran = {false};
@@ -374,6 +673,73 @@ public class ApplicationTests{
         assertTrue(state.teams.playerCores().size > 0);
     }
 
+    @Test
+    void saveLoadRegions(){
+        world.loadMap(testMap);
+        assertTrue(world.height() > Save9.bandRows, "Map must span multiple bands");
+
+        //place a multiblock across the border of two bands
+        Tile border = world.tile(10, Save9.bandRows - 1);
+        border.setBlock(Blocks.thoriumWallLarge, Team.sharded);
+
+        //spawn enough units to fill several entity blocks
+        for(int j = 0; j < Save9.entityBlockSize * 2 + 10; j++){
+            UnitTypes.dagger.spawn(Team.sharded, 20f + j % 10, 30f + j / 10);
+        }
+        int units = Groups.unit.count(u -> u.type == UnitTypes.dagger);
+
+        IntSeq floors = new IntSeq(), blocks = new IntSeq();
+        for(Tile tile : world.tiles){
+            floors.add(tile.floorID() << 16 | tile.overlayID());
+            blocks.add(tile.blockID());
+        }
+
+        Fi file = saveDirectory.child("regions.msav");
+        SaveIO.save(file);
+
+        //the regions are compressed separately, so the file itself must not be deflated
+        assertEquals(new String(SaveIO.header), new String(file.readBytes(), 0, SaveIO.header.length));
+        assertTrue(SaveIO.isSaveValid(file));
+
+        resetWorld();
+        SaveIO.load(file);
+
+        assertEquals(units, Groups.unit.count(u -> u.type == UnitTypes.dagger));
+
+        int i = 0;
+        for(Tile tile : world.tiles){
+            assertEquals(floors.get(i), tile.floorID() << 16 | tile.overlayID(), "Floor at " + tile.x + ", " + tile.y);
+            assertEquals(blocks.get(i), tile.blockID(), "Block at " + tile.x + ", " + tile.y);
+            i++;
+        }
+
+        assertSame(Blocks.thoriumWallLarge, world.tile(10, Save9.bandRows).block());
+        assertTrue(state.teams.playerCores().size > 0);
+    }
+
+    @Test
+    void saveLoadAsync() throws Exception{
+        world.loadMap(testMap);
+
+        Unit unit = UnitTypes.dagger.spawn(Team.sharded, 20f, 30f);
+        unit.health = 30f;
+
+        Fi file = saveDirectory.child("async.msav");
+        SaveIO.save(file);
+        SaveIO.saveAsync(file, null).get();
+
+        //the previous save is kept as a backup
+        assertTrue(SaveIO.backupFileFor(file).exists());
+
+        resetWorld();
+        SaveIO.load(file);
+
+        Unit spawned = Groups.unit.find(u -> u.type == UnitTypes.dagger);
+        assertNotNull(spawned, "Saved daggers must persist");
+        assertEquals(30f, spawned.health, "Spawned dagger health must save.");
+        assertTrue(state.teams.playerCores().size > 0);
+    }
+
     void updateBlocks(int times){
         for(Tile tile : world.tiles){
             if(tile.build != null && tile.isCenter()){
@@ -730,6 +1096,227 @@ public class ApplicationTests{
         assertEquals(world.tile(1, 1).build, world.tile(0, 0).build);
     }
 
+    @Test
+    void unitIndexQueries(){
+        world.resize(100, 100);
+        Mathf.rand.setSeed(1);
+
+        UnitIndex index = new UnitIndex(world.getQuadBounds(new Rect()));
+        Seq<Unit> units = new Seq<>(), present = new Seq<>();
+
+        for(int i = 0; i < 300; i++){
+            Unit unit = (i % 3 == 0 ? UnitTypes.dagger : UnitTypes.flare).create(Team.sharded);
+            unit.set(Mathf.random(world.unitWidth()), Mathf.random(world.unitHeight()));
+            units.add(unit);
+        }
+
+        for(int step = 0; step < 3; step++){
+            //move units around, and leave some out to remove them
+            present.clear();
+            index.begin();
+            for(Unit unit : units){
+                if(step > 0){
+                    unit.set(unit.x + Mathf.range(40f), unit.y + Mathf.range(40f));
+                }
+                if(step < 2 || unit.id % 4 != 0){
+                    index.insert(unit);
+                    present.add(unit);
+                }
+            }
+            index.finish();
+
+            //units keep moving after the update, by less than the margin the index allows for
+            for(int moved = 0; moved < 2; moved++){
+                if(moved > 0){
+                    for(Unit unit : present){
+                        unit.set(unit.x + Mathf.range(UnitIndex.moveMargin), unit.y + Mathf.range(UnitIndex.moveMargin));
+                    }
+                }
+
+                checkUnitIndex(index, present);
+            }
+        }
+
+        assertTrue(Groups.unit.tree() instanceof UnitIndex);
+    }
+
+    static void checkUnitIndex(UnitIndex index, Seq<Unit> present){
+        Seq<Unit> found = new Seq<>(), expected = new Seq<>();
+        Rect hitbox = new Rect(), query = new Rect();
+
+        for(int i = 0; i < 50; i++){
+            query.set(Mathf.random(world.unitWidth()), Mathf.random(world.unitHeight()), Mathf.random(10f, 200f), Mathf.random(10f, 200f));
+
+            found.clear();
+            index.intersect(query, found);
+
+            expected.clear();
+            for(Unit unit : present){
+                unit.hitbox(hitbox);
+                if(hitbox.overlaps(query)) expected.add(unit);
+            }
+
+            assertEquals(expected.size, found.size);
+            assertTrue(found.containsAll(expected, true));
+            assertEquals(expected.any(), index.any(query.x, query.y, query.width, query.height));
+        }
+    }
+
+    @Test
+    void batchedBulletCollisions(){
+        FloatSeq batched = bulletCollisionResult(true), single = bulletCollisionResult(false);
+
+        assertEquals(single.size, batched.size);
+        for(int i = 0; i < single.size; i++){
+            assertEquals(single.get(i), batched.get(i), 0.0001f, "Result " + i + " differs");
+        }
+    }
+
+    @Test
+    void sharedTurretTargeting(){
+        world.resize(100, 100);
+        Mathf.rand.setSeed(4);
+
+        for(int i = 0; i < 300; i++){
+            Unit unit = (i % 2 == 0 ? UnitTypes.dagger : UnitTypes.flare).create(i % 5 == 0 ? Team.green : Team.crux);
+            unit.set(Mathf.random(world.unitWidth()), Mathf.random(world.unitHeight()));
+            unit.add();
+        }
+        state.teams.updateTeamStats();
+
+        Units.Sortf[] sorts = {UnitSorts.closest, UnitSorts.farthest, UnitSorts.strongest, UnitSorts.weakest};
+
+        try{
+            for(int frame = 0; frame < 3; frame++){
+                state.updateId++;
+
+                for(int i = 0; i < 200; i++){
+                    float x = Mathf.random(world.unitWidth()), y = Mathf.random(world.unitHeight()), range = Mathf.random(40f, 300f);
+                    boolean air = Mathf.chance(0.5);
+                    Boolf<Unit> pred = u -> !u.dead() && (air || u.isGrounded());
+                    var sort = sorts[i % sorts.length];
+
+                    TurretTargeting.active = false;
+                    Unit expected = Units.bestEnemy(Team.sharded, x, y, range, pred, sort);
+                    TurretTargeting.active = true;
+                    Unit found = TurretTargeting.bestEnemy(Team.sharded, x, y, range, pred, sort);
+
+                    assertSame(expected, found, "Search " + i + " at " + x + ", " + y + " with range " + range);
+                }
+            }
+        }finally{
+            TurretTargeting.active = false;
+        }
+    }
+
+    @Test
+    void radarCacheMatchesSearch(){
+        logic.reset();
+        Tiles tiles = world.resize(60, 60);
+        world.beginMapLoad();
+        tiles.fill();
+        world.endMapLoad();
+        Mathf.rand.setSeed(5);
+
+        //two turrets with overlapping ranges, each read by many processors
+        world.tile(20, 20).setBlock(Blocks.duo, Team.sharded, 0);
+        world.tile(24, 22).setBlock(Blocks.duo, Team.sharded, 0);
+        Building[] turrets = {world.tile(20, 20).build, world.tile(24, 22).build};
+
+        //health and shields are random, so that no sort has ties that depend on the unit order
+        for(int i = 0; i < 40; i++){
+            Unit unit = (i % 2 == 0 ? UnitTypes.dagger : UnitTypes.flare).create(Team.crux);
+            unit.set(Mathf.random(100f, 260f), Mathf.random(100f, 260f));
+            unit.health = Mathf.random(1f, unit.maxHealth);
+            unit.shield = Mathf.random(50f);
+            unit.add();
+        }
+        state.teams.updateTeamStats();
+
+        LExecutor exec = new LExecutor();
+        exec.team = Team.sharded;
+        RadarSort[] sorts = {RadarSort.distance, RadarSort.health, RadarSort.shield};
+        //every query repeats four times, twice before and twice after the first target dies
+        int processors = 48, death = processors / 2;
+
+        //uncached: the cache is cleared before every search
+        Seq<Object> expected = new Seq<>();
+        Unit target = null;
+        for(int i = 0; i < processors; i++){
+            if(i == death){
+                target.remove();
+                state.teams.updateTeamStats();
+            }
+            state.updateId++;
+            expected.add(radar(exec, turrets[i % 2], sorts[i / 2 % sorts.length], i % 4 < 2));
+            if(i == 0){
+                target = (Unit)expected.first();
+                assertNotNull(target, "The first processor must find a target");
+            }
+        }
+
+        target.add();
+        state.teams.updateTeamStats();
+
+        //cached: all processors run in the same update
+        state.updateId++;
+        for(int i = 0; i < processors; i++){
+            if(i == death){
+                target.remove();
+                state.teams.updateTeamStats();
+            }
+            assertSame(expected.get(i), radar(exec, turrets[i % 2], sorts[i / 2 % sorts.length], i % 4 < 2), "Processor " + i);
+        }
+        assertNotSame(target, expected.get(death), "The dead target must not be returned from the cache");
+    }
+
+    /** Runs a new radar instruction, which always searches in its first run, and returns its output. */
+    Object radar(LExecutor exec, Building source, RadarSort sort, boolean ground){
+        LVar radar = new LVar("radar"), order = new LVar("order"), output = new LVar("output");
+        radar.setobj(source);
+        order.setnum(1);
+
+        new LExecutor.RadarI(RadarTarget.enemy, ground ? RadarTarget.ground : RadarTarget.any, RadarTarget.any, sort, radar, order, output).run(exec);
+        return output.obj();
+    }
+
+    /** @return unit health, and remaining bullets after one collision pass */
+    FloatSeq bulletCollisionResult(boolean batched){
+        logic.reset();
+        world.resize(100, 100);
+        Mathf.rand.setSeed(3);
+
+        //units are spread out, so no bullet can reach two of them, which would be handled in a different order
+        Seq<Unit> units = new Seq<>();
+        for(int i = 0; i < 100; i++){
+            Unit unit = UnitTypes.dagger.create(Team.crux);
+            unit.set(40f + (i % 10) * 70f + Mathf.range(10f), 40f + (i / 10) * 70f + Mathf.range(10f));
+            unit.add();
+            units.add(unit);
+        }
+        state.teams.updateTeamStats();
+
+        var type = UnitTypes.dagger.weapons.first().bullet;
+        for(int i = 0; i < 2000; i++){
+            float x = Mathf.random(world.unitWidth()), y = Mathf.random(world.unitHeight()), angle = Mathf.random(360f);
+            Bullet bullet = type.create(null, Team.sharded, x, y, angle);
+            //pretend the bullet moved a long way in the last frame
+            bullet.lastX = x - Angles.trnsx(angle, 12f);
+            bullet.lastY = y - Angles.trnsy(angle, 12f);
+        }
+
+        BulletCollisions.active = batched;
+        collisions.collide(Groups.bullet);
+        BulletCollisions.active = false;
+
+        FloatSeq result = new FloatSeq();
+        for(Unit unit : units){
+            result.add(unit.health);
+        }
+        result.add(Groups.bullet.size());
+        return result;
+    }
+
     @Test
     void buildingDestruction(){
         initBuilding();
@@ -0,0 +1,150 @@
+package mindustry.ai;
+
+import arc.struct.*;
+import mindustry.ai.ControlPathfinder.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedPathsTest{
+    static final int nodes = 200;
+
+    /** node -> pairs of neighbor and cost; costs are random, so every shortest path is unique */
+    IntSeq[] edges;
+    FloatSeq[] costs;
+
+    @BeforeEach
+    void createGraph(){
+        Random rand = new Random(7);
+        edges = new IntSeq[nodes];
+        costs = new FloatSeq[nodes];
+        for(int i = 0; i < nodes; i++){
+            edges[i] = new IntSeq();
+            costs[i] = new FloatSeq();
+        }
+
+        for(int i = 0; i < nodes - 1; i++){
+            connect(i, i + 1, 1f + rand.nextFloat());
+        }
+        for(int i = 0; i < nodes / 2; i++){
+            connect(rand.nextInt(nodes), rand.nextInt(nodes), 1f + rand.nextFloat() * 9f);
+        }
+    }
+
+    @Test
+    void followedPathsMatchSearch(){
+        SharedPaths shared = new SharedPaths();
+        int end = 0;
+        long key = SharedPaths.key(1, 0, end);
+
+        //requests come in random order, so later ones start anywhere on the paths of earlier ones
+        Random rand = new Random(3);
+        IntSeq starts = new IntSeq();
+        for(int i = 1; i < nodes; i++) starts.add(i);
+        for(int i = starts.size - 1; i > 0; i--){
+            starts.swap(i, rand.nextInt(i + 1));
+        }
+
+        for(int i = 0; i < starts.size; i++){
+            int start = starts.items[i];
+            IntSeq path = shared.find(key, start, end, new IntSeq(), this::search);
+
+            assertNotNull(path);
+            assertArrayEquals(search(start, end).toArray(), path.toArray(), "Path from " + start);
+        }
+
+        assertTrue(shared.hits > 0);
+        assertEquals(nodes - 1, shared.hits + shared.searches);
+    }
+
+    @Test
+    void inconsistentPathsFallBackToSearch(){
+        SharedPaths shared = new SharedPaths();
+        int start = 1, end = 0;
+        for(int i = 2; i < nodes; i++){
+            if(search(i, end).size > search(start, end).size) start = i;
+        }
+        long key = SharedPaths.key(1, 0, end);
+
+        IntSeq path = shared.find(key, start, end, new IntSeq(), this::search);
+        assertNotNull(path);
+        assertTrue(path.size >= 3, "Path is too short for a cycle: " + path);
+        int first = path.get(0), second = path.get(1);
+
+        //two merged paths that lead back to the start form a cycle
+        shared.paths.get(key).put(second, start);
+
+        long searches = shared.searches;
+        IntSeq result = shared.find(key, start, end, new IntSeq(), this::search);
+        assertEquals(searches + 1, shared.searches);
+        assertArrayEquals(search(start, end).toArray(), result.toArray());
+
+        //the new search replaced the cycle
+        long hits = shared.hits;
+        result = shared.find(key, first, end, new IntSeq(), this::search);
+        assertEquals(hits + 1, shared.hits);
+        assertArrayEquals(search(first, end).toArray(), result.toArray());
+    }
+
+    @Test
+    void retainDropsUnusedDestinations(){
+        SharedPaths shared = new SharedPaths();
+        long keyA = SharedPaths.key(1, 0, 0), keyB = SharedPaths.key(1, 0, 5), keyC = SharedPaths.key(2, 0, 5);
+
+        shared.find(keyA, 10, 0, new IntSeq(), this::search);
+        shared.find(keyB, 10, 5, new IntSeq(), this::search);
+        shared.find(keyC, 10, 5, new IntSeq(), this::search);
+
+        LongSeq keys = new LongSeq();
+        keys.add(keyB);
+        shared.retain(keys);
+        assertFalse(shared.paths.containsKey(keyA));
+        assertTrue(shared.paths.containsKey(keyB));
+        assertFalse(shared.paths.containsKey(keyC));
+    }
+
+    void connect(int a, int b, float cost){
+        if(a == b) return;
+        edges[a].add(b);
+        costs[a].add(cost);
+        edges[b].add(a);
+        costs[b].add(cost);
+    }
+
+    /** Dijkstra's algorithm, as a stand-in for the cluster A* search. */
+    IntSeq search(int start, int end){
+        float[] dist = new float[nodes];
+        int[] from = new int[nodes];
+        boolean[] closed = new boolean[nodes];
+        Arrays.fill(dist, Float.POSITIVE_INFINITY);
+        dist[start] = 0f;
+
+        while(true){
+            int cur = -1;
+            for(int i = 0; i < nodes; i++){
+                if(!closed[i] && dist[i] < Float.POSITIVE_INFINITY && (cur == -1 || dist[i] < dist[cur])) cur = i;
+            }
+            if(cur == -1) return null;
+            if(cur == end) break;
+            closed[cur] = true;
+
+            for(int i = 0; i < edges[cur].size; i++){
+                int other = edges[cur].items[i];
+                float cost = dist[cur] + costs[cur].items[i];
+                if(cost < dist[other]){
+                    dist[other] = cost;
+                    from[other] = cur;
+                }
+            }
+        }
+
+        IntSeq path = new IntSeq();
+        for(int cur = end; cur != start; cur = from[cur]){
+            path.add(cur);
+        }
+        path.reverse();
+        return path;
+    }
+}
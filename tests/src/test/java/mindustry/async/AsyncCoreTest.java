@@ -0,0 +1,102 @@
+package mindustry.async;
+
+import arc.struct.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncCoreTest{
+
+    @Test
+    public void physicsDeclaresResources(){
+        PhysicsProcess physics = new PhysicsProcess();
+        AsyncProcess unitWriter = new TestProcess(0, AsyncResource.units.bit, null);
+
+        assertNotEquals(0, physics.writes() & AsyncResource.physics.bit);
+        assertTrue(physics.conflicts(unitWriter));
+        assertFalse(physics.conflicts(new FogProcess()));
+    }
+
+    /** A process that reads a resource written by an earlier one must start after it finishes. */
+    @Test
+    public void conflictingProcessesAreOrdered(){
+        for(int attempt = 0; attempt < 20; attempt++){
+            AtomicBoolean writing = new AtomicBoolean(), overlapped = new AtomicBoolean();
+            IntSeq order = new IntSeq();
+
+            AsyncCore core = new AsyncCore();
+            core.processes.clear();
+            core.processes.add(
+                new TestProcess(0, AsyncResource.units.bit, () -> {
+                    writing.set(true);
+                    sleep(5);
+                    synchronized(order){
+                        order.add(1);
+                    }
+                    writing.set(false);
+                }),
+                new TestProcess(AsyncResource.units.bit, 0, () -> {
+                    if(writing.get()) overlapped.set(true);
+                    synchronized(order){
+                        order.add(2);
+                    }
+                })
+            );
+
+            core.submit();
+            core.complete();
+
+            assertFalse(overlapped.get(), "Reader ran while the writer was running");
+            assertArrayEquals(new int[]{1, 2}, order.toArray());
+        }
+    }
+
+    @Test
+    public void processExceptionsAreRethrown(){
+        AsyncCore core = new AsyncCore();
+        core.processes.clear();
+        core.processes.add(new TestProcess(0, 0, () -> {
+            throw new IllegalStateException("process failed");
+        }));
+
+        core.submit();
+        var error = assertThrows(IllegalStateException.class, core::complete);
+        assertEquals("process failed", error.getMessage());
+    }
+
+    static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch(InterruptedException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class TestProcess implements AsyncProcess{
+        final int reads, writes;
+        final Runnable process;
+
+        TestProcess(int reads, int writes, Runnable process){
+            this.reads = reads;
+            this.writes = writes;
+            this.process = process;
+        }
+
+        @Override
+        public void process(){
+            if(process != null) process.run();
+        }
+
+        @Override
+        public int reads(){
+            return reads;
+        }
+
+        @Override
+        public int writes(){
+            return writes;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package mindustry.async;
+
+import arc.math.*;
+import arc.math.geom.*;
+import mindustry.async.PhysicsProcess.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhysicsWorldTest{
+    static final Rect bounds = new Rect(0f, 0f, 4000f, 4000f);
+
+    /** Isolated overlapping pairs resolve the same way regardless of broadphase, since bodies are processed in ID order. */
+    @Test
+    public void gridMatchesQuadtree(){
+        PhysicsWorld tree = new PhysicsWorld(bounds, false), grid = new PhysicsWorld(bounds, true);
+        Rand rand = new Rand(1);
+
+        for(int px = 0; px < 20; px++){
+            for(int py = 0; py < 20; py++){
+                float x = 100f + px * 180f, y = 100f + py * 180f, r = rand.random(4f, 20f);
+                float ox = rand.range(r), oy = rand.range(r);
+                int layer = rand.random(PhysicsProcess.layers - 1);
+
+                for(PhysicsWorld world : new PhysicsWorld[]{tree, grid}){
+                    world.layer[world.add(x, y, r, r * r)] = layer;
+                    world.layer[world.add(x + ox, y + oy, r * 0.5f, r * r * 0.25f)] = layer;
+                }
+            }
+        }
+
+        tree.update();
+        grid.update();
+
+        for(int i = 0; i < tree.bodies(); i++){
+            assertEquals(tree.x[i], grid.x[i], 0.0001f, "Body " + i + " x");
+            assertEquals(tree.y[i], grid.y[i], 0.0001f, "Body " + i + " y");
+        }
+    }
+
+    @Test
+    public void removedBodiesDoNotCollide(){
+        PhysicsWorld world = new PhysicsWorld(bounds, true);
+        int a = world.add(100f, 100f, 10f, 1f), b = world.add(105f, 100f, 10f, 1f);
+        world.remove(b);
+        world.update();
+
+        assertEquals(100f, world.x[a], 0.0001f);
+        assertEquals(1, world.bodies());
+    }
+
+    /** Both broadphases must find every contact in a crowded world, and must not move bodies that touch nothing. */
+    @ParameterizedTest
+    @ValueSource(ints = {500, 2000})
+    public void crowdedContacts(int amount){
+        for(boolean useGrid : new boolean[]{false, true}){
+            PhysicsWorld world = new PhysicsWorld(bounds, useGrid);
+            Rand rand = new Rand(amount);
+            for(int i = 0; i < amount; i++){
+                float r = rand.random(4f, 24f);
+                world.layer[world.add(rand.random(bounds.width), rand.random(bounds.height / 4f), r, r * r * Mathf.pi)] = rand.random(PhysicsProcess.layers - 1);
+            }
+
+            int bodies = world.bodies();
+            float[] startX = Arrays.copyOf(world.x, bodies), startY = Arrays.copyOf(world.y, bodies);
+            float startOverlap = overlap(world);
+            assertTrue(startOverlap > 0f, "Bodies must start out overlapping");
+
+            world.update();
+
+            for(int i = 0; i < bodies; i++){
+                boolean moved = world.x[i] != startX[i] || world.y[i] != startY[i];
+                float gap = Float.MAX_VALUE;
+                for(int j = 0; j < bodies; j++){
+                    if(i == j || world.layer[i] != world.layer[j]) continue;
+                    gap = Math.min(gap, Mathf.dst(startX[i], startY[i], startX[j], startY[j]) - world.radius[i] - world.radius[j]);
+                }
+
+                if(gap < 0f){
+                    assertTrue(moved, "Body " + i + " overlapped another body, but did not move (" + (useGrid ? "grid" : "quadtree") + ")");
+                }else if(gap > 200f){
+                    assertFalse(moved, "Body " + i + " touched nothing, but moved (" + (useGrid ? "grid" : "quadtree") + ")");
+                }
+            }
+
+            for(int i = 0; i < 30; i++){
+                world.update();
+            }
+
+            assertTrue(overlap(world) < startOverlap * 0.5f, "Overlap must be resolved over time (" + (useGrid ? "grid" : "quadtree") + ")");
+        }
+    }
+
+    /** @return the sum of the overlap depths of all pairs of bodies in the same layer */
+    static float overlap(PhysicsWorld world){
+        float sum = 0f;
+        for(int i = 0; i < world.bodies(); i++){
+            for(int j = i + 1; j < world.bodies(); j++){
+                if(world.layer[i] != world.layer[j]) continue;
+                sum += Math.max(world.radius[i] + world.radius[j] - Mathf.dst(world.x[i], world.y[i], world.x[j], world.y[j]), 0f);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,53 @@
+package mindustry.net;
+
+import arc.struct.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityBaselinesTest{
+
+    @Test
+    public void acknowledgedPacketsKeepBaselines(){
+        EntityBaselines baselines = new EntityBaselines();
+        baselines.beginSnapshot();
+        baselines.obtain(1);
+        baselines.sent(baselines.nextPacket(), IntSeq.with(1));
+
+        int packet = baselines.nextPacket();
+        baselines.obtain(2);
+        baselines.sent(packet, IntSeq.with(2));
+        baselines.ack(packet, false);
+
+        //the first packet was never acknowledged, and the client only applies newer packets
+        assertNull(baselines.get(1));
+        assertNotNull(baselines.get(2));
+
+        for(int i = 0; i <= EntityBaselines.ackTimeout * 2; i++){
+            baselines.beginSnapshot();
+        }
+        assertNotNull(baselines.get(2));
+    }
+
+    /** When the last packet is lost, there is no later acknowledgement, so it must expire on its own. */
+    @Test
+    public void droppedFinalPacketExpires(){
+        EntityBaselines baselines = new EntityBaselines();
+        baselines.beginSnapshot();
+        baselines.obtain(1);
+        baselines.sent(baselines.nextPacket(), IntSeq.with(1));
+
+        //nothing changes afterwards, so no more packets are sent
+        for(int i = 0; i < EntityBaselines.ackTimeout; i++){
+            baselines.beginSnapshot();
+        }
+        assertNotNull(baselines.get(1));
+
+        baselines.beginSnapshot();
+        assertNull(baselines.get(1));
+
+        //an acknowledgement that arrives too late does not break anything
+        baselines.ack(1, false);
+        assertNull(baselines.get(1));
+    }
+}
@@ -0,0 +1,122 @@
+package power;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.world.*;
+import mindustry.world.blocks.power.PowerGenerator.*;
+import mindustry.world.blocks.power.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the totals a power graph caches against a fresh recomputation.
+ * The update time of large graphs is measured by the tests tagged as benchmarks, which only run with the benchmark task.
+ */
+public class PowerGraphBenchmark extends PowerTestFixture{
+
+    @Test
+    void largeGraphTotals(){
+        PowerGraph graph = createLargeGraph(10_000);
+
+        for(int i = 0; i < 5; i++){
+            graph.update();
+        }
+
+        for(Building build : graph.all){
+            assertTrue(build.power.status >= 0f && build.power.status <= 1f, "Power status out of range: " + build.power.status);
+        }
+        assertTotals(graph);
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void updateLargeGraph(int nodes){
+        PowerGraph graph = createLargeGraph(nodes);
+
+        int warmup = 50, iterations = 200;
+        for(int i = 0; i < warmup; i++){
+            graph.update();
+        }
+
+        Time.mark();
+        for(int i = 0; i < iterations; i++){
+            graph.update();
+        }
+        float elapsed = Time.elapsed();
+
+        Log.info("@ nodes: @ us/update", nodes, Strings.fixed(elapsed * 1000f / iterations, 1));
+    }
+
+    @Test
+    void cachedTotalsMatchAfterChanges(){
+        Block producer = createFakeProducerBlock(1f), consumer = createFakeDirectConsumer(0.5f);
+        Block smallBattery = createFakeBattery(10f), largeBattery = createFakeBattery(250f);
+        PowerGraph graph = new PowerGraph();
+        Seq<Building> batteries = new Seq<>();
+
+        for(int i = 0; i < 60; i++){
+            int kind = i % 4;
+            Tile tile = createFakeTile(i, 0, kind == 0 ? consumer : kind == 1 ? producer : kind == 2 ? smallBattery : largeBattery);
+            if(tile.build instanceof GeneratorBuild gen) gen.productionEfficiency = 1f;
+            if(kind >= 2) batteries.add(tile.build);
+            graph.add(tile.build);
+        }
+
+        for(Building build : graph.all) build.updateConsumption();
+        assertTotals(graph);
+
+        //removing batteries reorders the battery list, so the cached capacities must be rebuilt
+        for(int i = 0; i < batteries.size; i += 3){
+            graph.removeList(batteries.get(i));
+        }
+        assertTotals(graph);
+
+        for(int i = 0; i < 10; i++){
+            Tile tile = createFakeTile(i, 1, i % 2 == 0 ? largeBattery : consumer);
+            tile.build.updateConsumption();
+            graph.add(tile.build);
+        }
+        assertTotals(graph);
+
+        //disabled batteries do not count towards any total
+        batteries.get(1).enabled = false;
+        assertTotals(graph);
+    }
+
+    /** @return a graph that is half consumers, a third producers and the rest batteries */
+    static PowerGraph createLargeGraph(int nodes){
+        Block producer = createFakeProducerBlock(1f), consumer = createFakeDirectConsumer(1.2f), battery = createFakeBattery(100f);
+        PowerGraph graph = new PowerGraph();
+
+        for(int i = 0; i < nodes; i++){
+            int kind = i % 6;
+            Tile tile = createFakeTile(i % 1000, i / 1000, kind < 3 ? consumer : kind < 5 ? producer : battery);
+            if(tile.build instanceof GeneratorBuild gen) gen.productionEfficiency = 1f;
+            graph.add(tile.build);
+        }
+
+        for(Building build : graph.all) build.updateConsumption();
+        return graph;
+    }
+
+    /** Updates the graph and compares the totals it computed in the update with the results of the uncached methods. */
+    static void assertTotals(PowerGraph graph){
+        for(int i = 0; i < 3; i++){
+            float stored = graph.getBatteryStored(), capacity = graph.getTotalBatteryCapacity();
+            float needed = graph.getPowerNeeded(), produced = graph.getPowerProduced();
+
+            graph.update();
+
+            assertEquals(stored, graph.getLastPowerStored());
+            assertEquals(capacity, graph.getLastCapacity());
+            assertEquals(needed, graph.getLastPowerNeeded());
+            //batteries that were drained count towards the produced power
+            assertEquals(produced + Math.max(Math.min(needed - produced, stored), 0f), graph.getLastPowerProduced(), 0.0001f * Math.max(produced, 1f));
+        }
+    }
+}